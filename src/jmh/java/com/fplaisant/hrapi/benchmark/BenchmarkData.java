@@ -0,0 +1,43 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jeux de données communs aux benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * ObjectMapper construit comme celui de l'application : Spring Boot part du même
+     * {@link Jackson2ObjectMapperBuilder} (modules détectés, dates ISO, propriétés inconnues ignorées).
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static Employee employee(long id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("Prenom" + id);
+        employee.setLastName("NOM" + id);
+        employee.setMail("employe" + id + "@mail.com");
+        employee.setPassword("{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1HRjwvrmqTyS3YlGhNcHdFS");
+        return employee;
+    }
+
+    static List<Employee> employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            employees.add(employee(i));
+        }
+        return employees;
+    }
+}
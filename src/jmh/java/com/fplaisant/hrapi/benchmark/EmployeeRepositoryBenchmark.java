@@ -0,0 +1,86 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fplaisant.hrapi.HrapiApplication;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accès au dépôt sur une base H2 en mémoire de 10k, 100k et 1M lignes : lecture par id,
+ * page keyset et findAll() (chargement complet de la table, ce que faisait GET /employees).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EmployeeRepositoryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(HrapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.cache.type=none",
+                        "logging.level.root=ERROR",
+                        "spring.security.debug=false")
+                .run();
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        seed(context.getBean(JdbcTemplate.class), rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees", Long.class);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (long i = existing; i < rows; i++) {
+            batch.add(new Object[]{"Prenom" + i, "NOM" + i, "employe" + i + "@mail.com", "{noop}password"});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO employees (first_name, last_name, mail, password) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO employees (first_name, last_name, mail, password) VALUES (?, ?, ?, ?)", batch);
+        }
+    }
+
+    @Benchmark
+    public Optional<Employee> findById() {
+        return employeeRepository.findById(ThreadLocalRandom.current().nextLong(1, rows + 1));
+    }
+
+    @Benchmark
+    public List<Employee> keysetPage() {
+        long afterId = ThreadLocalRandom.current().nextLong(0, rows - 100);
+        return employeeRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(100));
+    }
+
+    @Benchmark
+    public Iterable<Employee> findAll() {
+        return employeeRepository.findAll();
+    }
+}
@@ -0,0 +1,82 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fplaisant.hrapi.HrapiApplication;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeSuggestion;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import com.fplaisant.hrapi.service.EmployeePrefixIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplétion sur 100k et 1M lignes : index de préfixes en mémoire contre requête
+ * {@code LIKE 'prefix%'} indexée, pour 10 suggestions. Les préfixes vont du plus sélectif
+ * (NOM12345, quelques lignes) au moins sélectif (NOM1, un dixième de la table).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class EmployeeSearchBenchmark {
+
+    private static final int SUGGESTIONS = 10;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "3", "5"})
+    public int prefixDigits;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private EmployeePrefixIndex prefixIndex;
+    private int bound;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(HrapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.cache.type=none",
+                        "hrapi.search.prefix-index.enabled=true",
+                        "hrapi.search.prefix-index.refresh-ms=3600000",
+                        "logging.level.root=ERROR",
+                        "spring.security.debug=false")
+                .run();
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        prefixIndex = context.getBean(EmployeePrefixIndex.class);
+        EmployeeRepositoryBenchmark.seed(context.getBean(JdbcTemplate.class), rows);
+        prefixIndex.rebuild();
+        bound = (int) Math.pow(10, prefixDigits);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String prefix() {
+        return "NOM" + ThreadLocalRandom.current().nextInt(bound / 10, bound);
+    }
+
+    @Benchmark
+    public List<EmployeeSuggestion> prefixIndex() {
+        return prefixIndex.lookup(EmployeePrefixIndex.Field.LAST_NAME, prefix(), SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<Employee> likeQuery() {
+        return employeeRepository.findByLastNameStartingWithOrderByLastNameAscFirstNameAsc(prefix(), Limit.of(SUGGESTIONS));
+    }
+}
@@ -0,0 +1,42 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON des employés avec l'ObjectMapper du contrôleur : un employé
+ * (GET /employee/{id}) et une page de 100 (GET /employees/page).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EmployeeSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = BenchmarkData.objectMapper();
+    private Employee employee;
+    private List<Employee> page;
+
+    @Setup
+    public void setUp() {
+        employee = BenchmarkData.employee(42);
+        page = BenchmarkData.employees(100);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,45 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction de la charge utile d'un événement d'écriture : ancienne liste complète
+ * re-sérialisée à chaque écriture contre l'événement delta actuel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EventPayloadBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private final ObjectMapper objectMapper = BenchmarkData.objectMapper();
+    private List<Employee> employees;
+
+    @Setup
+    public void setUp() {
+        employees = BenchmarkData.employees(rows);
+    }
+
+    @Benchmark
+    public String fullListPayload() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(employees);
+    }
+
+    @Benchmark
+    public String deltaEventPayload() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(EmployeeEvent.updated(42L, Map.of("firstName", "Paul"), 1L));
+    }
+}
@@ -0,0 +1,57 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fplaisant.configuration.CachingJwtDecoder;
+import com.fplaisant.configuration.TokenRevocationList;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de décodage d'un même jeton réutilisé (cas de la passerelle), avec et sans
+ * {@link CachingJwtDecoder}, configuré comme dans SecurityConfig.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private JwtDecoder decoder;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SecretKeySpec key = new SecretKeySpec("XFYFrCVon07UkoC6abzdq0FpNdXellaq".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        JwtDecoder nimbusDecoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        decoder = cached ? new CachingJwtDecoder(nimbusDecoder, 10_000, Duration.ofMinutes(10),
+                new TokenRevocationList(), new SimpleMeterRegistry()) : nimbusDecoder;
+
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("self")
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofDays(1)))
+                .subject("user")
+                .build();
+        JwtEncoder encoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        token = encoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims)).getTokenValue();
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+}
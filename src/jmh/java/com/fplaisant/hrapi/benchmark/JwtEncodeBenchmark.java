@@ -0,0 +1,43 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fplaisant.hrapi.service.JWTService;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de {@link JWTService#generateToken} (POST /token, hors authentification Basic).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class JwtEncodeBenchmark {
+
+    private JWTService jwtService;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() {
+        SecretKeySpec key = new SecretKeySpec("XFYFrCVon07UkoC6abzdq0FpNdXellaq".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        jwtService = new JWTService(new NimbusJwtEncoder(new ImmutableSecret<>(key)), Duration.ofDays(1));
+        authentication = UsernamePasswordAuthenticationToken.authenticated("user", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(authentication);
+    }
+}
@@ -0,0 +1,49 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fplaisant.configuration.CachingPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'une authentification Basic répétée : bcrypt complet à chaque appel contre
+ * vérification servie par {@link CachingPasswordEncoder}. Le mode SampleTime donne
+ * la distribution (p50, p99...) de chaque variante.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordMatchBenchmark {
+
+    private static final String PASSWORD = "SecurePass123";
+
+    @Param({"10"})
+    public int strength;
+
+    private PasswordEncoder bcrypt;
+    private PasswordEncoder caching;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        caching = new CachingPasswordEncoder(bcrypt, Duration.ofMinutes(5), 10_000);
+        encoded = bcrypt.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return bcrypt.matches(PASSWORD, encoded);
+    }
+
+    @Benchmark
+    public boolean cachedMatches() {
+        return caching.matches(PASSWORD, encoded);
+    }
+}
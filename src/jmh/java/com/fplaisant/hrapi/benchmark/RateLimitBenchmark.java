@@ -0,0 +1,83 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fplaisant.configuration.RateLimitFilter;
+import com.fplaisant.configuration.RateLimiter;
+import com.fplaisant.hrapi.config.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surcoût par requête de la limite de débit et du contrôle d'admission, avec une chaîne vide
+ * derrière. Débits très élevés pour ne mesurer que le chemin admis ; {@code -t 8} pour voir
+ * l'effet de la contention sur une même clé.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private RateLimiter limiter;
+    private RateLimitFilter rateLimitFilter;
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        limiter = new RateLimiter(1e9, 1_000_000, 100_000, Duration.ofMinutes(10));
+        rateLimitFilter = new RateLimitFilter(RateLimitFilter.Scope.IP, limiter, limiter, Set.of("/token"), meterRegistry);
+        concurrencyLimitFilter = new ConcurrencyLimitFilter(10_000, Duration.ofSeconds(1), meterRegistry);
+        keys = new String[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            request = new MockHttpServletRequest("GET", "/employees");
+            request.setRemoteAddr("10.0.0.1");
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public long tryAcquireSameKey() {
+        return limiter.tryAcquire("10.0.0.1");
+    }
+
+    @Benchmark
+    public long tryAcquireManyKeys() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public int rateLimitFilter(Exchange exchange) throws Exception {
+        rateLimitFilter.doFilter(exchange.request, exchange.response, NOOP_CHAIN);
+        return exchange.response.getStatus();
+    }
+
+    @Benchmark
+    public int concurrencyLimitFilter(Exchange exchange) throws Exception {
+        concurrencyLimitFilter.doFilter(exchange.request, exchange.response, NOOP_CHAIN);
+        return exchange.response.getStatus();
+    }
+}
@@ -0,0 +1,105 @@
+package com.fplaisant.hrapi.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.service.EmployeeProtobufCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON contre protobuf ({@link EmployeeProtobufCodec}) : ns par enregistrement en sérialisation et
+ * désérialisation, pour un employé, une page de 100 (GET /employees/page) et un événement Kafka.
+ * La taille en octets par enregistrement de chaque format est affichée à la fin de chaque essai.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "protobuf"})
+    public String format;
+
+    private final ObjectMapper objectMapper = BenchmarkData.objectMapper();
+    private final ObjectWriter employeeWriter = objectMapper.writerFor(Employee.class);
+    private final ObjectWriter pageWriter = objectMapper.writerFor(new TypeReference<List<Employee>>() { });
+    private final ObjectReader employeeReader = objectMapper.readerFor(Employee.class);
+    private final ObjectReader pageReader = objectMapper.readerFor(new TypeReference<List<Employee>>() { });
+    private final ObjectReader eventReader = objectMapper.readerFor(EmployeeEvent.class);
+    private final EmployeeProtobufCodec codec = new EmployeeProtobufCodec();
+
+    private boolean protobuf;
+    private Employee employee;
+    private List<Employee> page;
+    private EmployeeEvent event;
+    private byte[] employeeBytes;
+    private byte[] pageBytes;
+    private byte[] eventBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        protobuf = "protobuf".equals(format);
+        employee = BenchmarkData.employee(42);
+        page = BenchmarkData.employees(PAGE_SIZE);
+        event = EmployeeEvent.updated(42L, Map.of("firstName", "Paul", "mail", "paul.dupont@mail.com"), 1234L, 7L);
+        employeeBytes = serializeEmployee();
+        pageBytes = serializePage();
+        eventBytes = serializeEvent();
+    }
+
+    @TearDown
+    public void printSizes() {
+        System.out.printf("%n%s: %d octets/employé, %.1f octets/employé en page de %d, %d octets/événement%n",
+                format, employeeBytes.length, (double) pageBytes.length / PAGE_SIZE, PAGE_SIZE, eventBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws IOException {
+        return protobuf ? codec.encode(employee) : employeeWriter.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserializeEmployee() throws IOException {
+        return protobuf ? codec.decodeEmployee(employeeBytes) : employeeReader.readValue(employeeBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public byte[] serializePage() throws IOException {
+        if (!protobuf) {
+            return pageWriter.writeValueAsBytes(page);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(8192);
+        codec.writeEmployees(page, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public List<Employee> deserializePage() throws IOException {
+        return protobuf ? codec.decodeEmployees(pageBytes) : pageReader.readValue(pageBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeEvent() throws IOException {
+        return protobuf ? codec.encode(event) : objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public EmployeeEvent deserializeEvent() throws IOException {
+        return protobuf ? codec.decodeEvent(eventBytes) : eventReader.readValue(eventBytes);
+    }
+}
@@ -0,0 +1,80 @@
+package com.fplaisant.hrapi.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Charge en boucle fermée : {@code concurrency} clients enchaînent les requêtes sans pause
+ * pendant {@code duration}, chacun sur sa propre connexion. Mesure le débit soutenable et
+ * la latence observée à ce niveau de concurrence.
+ */
+public final class ClosedLoopDriver {
+
+    private ClosedLoopDriver() {
+    }
+
+    public record Result(long requests, long errors, double throughputPerSecond,
+                         long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+    }
+
+    public static Result run(HttpClient client, Supplier<HttpRequest> request, int concurrency, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        long[] errors = new long[concurrency];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                workers.add(executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request.get(), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors[worker]++;
+                            }
+                        } catch (Exception e) {
+                            errors[worker]++;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = (System.nanoTime() - start) / 1000;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] samples = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + samples.length);
+            System.arraycopy(samples, 0, all, offset, samples.length);
+        }
+        Arrays.sort(all);
+        long totalErrors = Arrays.stream(errors).sum();
+        return new Result(all.length, totalErrors, all.length / (double) duration.toSeconds(),
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999),
+                all.length == 0 ? 0 : all[all.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
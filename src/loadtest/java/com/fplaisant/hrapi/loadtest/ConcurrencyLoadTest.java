@@ -0,0 +1,88 @@
+package com.fplaisant.hrapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test at high connection counts (5000 by default) against an in-memory H2.
+ *
+ * Run once per thread model and compare the reports:
+ * mvn -Ploadtest test
+ * mvn -Ploadtest test -Dloadtest.spring-profiles=virtual-threads
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "spring.kafka.producer.properties.max.block.ms=1000",
+        "logging.level.org.springframework.security=ERROR",
+        "logging.level.org.springframework.web=ERROR",
+        "spring.security.debug=false",
+        // Mesure de la capacité brute : pas de limite de débit ni de rejet à l'admission
+        "hrapi.ratelimit.enabled=false",
+        "hrapi.admission.enabled=false"
+})
+class ConcurrencyLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private String fetchToken(HttpClient client) throws Exception {
+        String basic = Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/token"))
+                .header("Authorization", "Basic " + basic)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    @Test
+    void readWorkloadAtHighConcurrency() throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 5000);
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30));
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String token = fetchToken(client);
+        URI employee = URI.create("http://localhost:" + port + "/employee/1");
+
+        ClosedLoopDriver.Result result = ClosedLoopDriver.run(client,
+                () -> HttpRequest.newBuilder(employee).header("Authorization", "Bearer " + token).GET().build(),
+                concurrency, duration);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threads", virtualThreads ? "virtual" : "platform");
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", duration.toSeconds());
+        report.put("result", result);
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/loadtest"));
+        Files.createDirectories(reportDir);
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(reportDir.resolve("concurrency-" + report.get("threads") + ".json").toFile(), report);
+
+        assertTrue(result.requests() > 0);
+        assertTrue(result.errors() <= result.requests() / 100, "more than 1% of requests failed");
+    }
+}
@@ -0,0 +1,116 @@
+package com.fplaisant.hrapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Jeu de données et mélange de requêtes communs aux tests en boucle ouverte.
+ *
+ * Le mélange est lu dans {@code loadtest.mix} ({@code read:80,search:10,write:8,token:2} par
+ * défaut) : lecture d'un employé, recherche par préfixe de nom, JSON Merge Patch d'un employé et
+ * obtention d'un jeton (bcrypt). Les employés visés sont tirés uniformément dans le jeu de données.
+ */
+final class MixedWorkload {
+
+    static final String BASIC_AUTH = "Basic "
+            + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+
+    private MixedWorkload() {
+    }
+
+    static HttpClient client() {
+        return HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Complète la table jusqu'à {@code size} employés. Insertion SQL directe (mot de passe
+     * {noop}) : hacher des centaines de milliers de mots de passe prendrait plus longtemps que
+     * le test.
+     *
+     * @return le plus grand id
+     */
+    static long seed(JdbcTemplate jdbcTemplate, int size) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees", Integer.class);
+        if (count < size) {
+            jdbcTemplate.update("INSERT INTO employees (first_name, last_name, mail, password) "
+                    + "SELECT 'First' || X, 'LOAD' || MOD(X, 1000), 'employee' || X || '@load.test', '{noop}password' "
+                    + "FROM SYSTEM_RANGE(?, ?)", count + 1, size);
+        }
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM employees", Long.class);
+    }
+
+    static String fetchToken(HttpClient client, int port) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/token"))
+                .header("Authorization", BASIC_AUTH)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST /token : " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    static List<OpenLoopDriver.Operation> operations(int port, Supplier<String> token, long maxId) {
+        String base = "http://localhost:" + port;
+        List<OpenLoopDriver.Operation> operations = new ArrayList<>();
+        for (String entry : System.getProperty("loadtest.mix", "read:80,search:10,write:8,token:2").split(",")) {
+            String[] parts = entry.trim().split(":");
+            String name = parts[0];
+            int weight = Integer.parseInt(parts[1]);
+            Supplier<HttpRequest> request = switch (name) {
+                case "read" -> () -> HttpRequest.newBuilder(URI.create(base + "/employee/" + randomId(maxId)))
+                        .header("Authorization", "Bearer " + token.get())
+                        .GET().build();
+                case "search" -> () -> HttpRequest.newBuilder(URI.create(base + "/employees/search?lastName=LOAD"
+                                + ThreadLocalRandom.current().nextInt(100) + "&size=20"))
+                        .header("Authorization", "Bearer " + token.get())
+                        .GET().build();
+                case "write" -> () -> HttpRequest.newBuilder(URI.create(base + "/employee/" + randomId(maxId)))
+                        .header("Authorization", "Bearer " + token.get())
+                        .header("Content-Type", "application/merge-patch+json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                                "{\"firstName\":\"Load" + ThreadLocalRandom.current().nextInt(1_000_000) + "\"}"))
+                        .build();
+                case "token" -> () -> HttpRequest.newBuilder(URI.create(base + "/token"))
+                        .header("Authorization", BASIC_AUTH)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+                default -> throw new IllegalArgumentException("Opération inconnue dans loadtest.mix : " + name);
+            };
+            operations.add(new OpenLoopDriver.Operation(name, weight, request));
+        }
+        return operations;
+    }
+
+    static Path reportDir() throws IOException {
+        return Files.createDirectories(Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+    }
+
+    static void writeReport(String name, Object report) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportDir().resolve(name + ".json").toFile(), report);
+    }
+
+    private static long randomId(long maxId) {
+        return ThreadLocalRandom.current().nextLong(1, maxId + 1);
+    }
+}
@@ -0,0 +1,151 @@
+package com.fplaisant.hrapi.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Charge en boucle ouverte : les requêtes partent à débit fixe ({@code ratePerSecond}), qu'elles
+ * aient ou non reçu leur réponse, réparties entre les opérations selon leur poids.
+ *
+ * La latence est mesurée depuis l'instant d'envoi prévu et non l'instant d'envoi réel : un
+ * ralentissement du serveur (ou du générateur) compte pour toutes les requêtes qu'il retarde,
+ * sans omission coordonnée. Les latences sont enregistrées dans un {@link Recorder} HdrHistogram
+ * par opération (HdrHistogram est une dépendance de Micrometer).
+ *
+ * Au-delà de {@code maxInFlight} requêtes sans réponse, les suivantes ne sont pas envoyées et
+ * comptent comme des erreurs.
+ */
+public final class OpenLoopDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private OpenLoopDriver() {
+    }
+
+    public record Operation(String name, int weight, Supplier<HttpRequest> request) {
+    }
+
+    public record Result(Map<String, Histogram> latencies, long sent, long errors, long dropped,
+                         double targetRate, double achievedRate) {
+
+        /**
+         * Latences de toutes les opérations confondues.
+         */
+        public Histogram total() {
+            Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+            latencies.values().forEach(total::add);
+            return total;
+        }
+
+        public Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("targetRate", targetRate);
+            report.put("achievedRate", achievedRate);
+            report.put("sent", sent);
+            report.put("errors", errors);
+            report.put("dropped", dropped);
+            report.put("total", summary(total()));
+            Map<String, Object> operations = new LinkedHashMap<>();
+            latencies.forEach((name, histogram) -> operations.put(name, summary(histogram)));
+            report.put("operations", operations);
+            return report;
+        }
+
+        private static Map<String, Object> summary(Histogram histogram) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", histogram.getTotalCount());
+            summary.put("p50Micros", histogram.getValueAtPercentile(50));
+            summary.put("p90Micros", histogram.getValueAtPercentile(90));
+            summary.put("p99Micros", histogram.getValueAtPercentile(99));
+            summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+            summary.put("maxMicros", histogram.getMaxValue());
+            return summary;
+        }
+    }
+
+    public static Result run(HttpClient client, List<Operation> operations, double ratePerSecond, Duration duration,
+                             int maxInFlight, long seed) throws InterruptedException {
+        int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            recorders.put(operation.name(), new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        long dropped = 0;
+        long sent = 0;
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // En retard, la requête part tout de suite : son retard est compté dans sa latence
+            Operation operation = pick(operations, random.nextInt(totalWeight));
+            if (inFlight.get() >= maxInFlight) {
+                dropped++;
+                errors.incrementAndGet();
+                continue;
+            }
+            Recorder recorder = recorders.get(operation.name());
+            inFlight.incrementAndGet();
+            sent++;
+            client.sendAsync(operation.request().get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, exception) -> {
+                        recorder.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS,
+                                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended)));
+                        if (exception != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        } else {
+                            completed.incrementAndGet();
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        // Les réponses en attente sont comptées, avec leur latence réelle
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        errors.addAndGet(inFlight.get());
+
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        recorders.forEach((name, recorder) -> latencies.put(name, recorder.getIntervalHistogram()));
+        double seconds = duration.toNanos() / 1e9;
+        return new Result(latencies, sent, errors.get(), dropped, ratePerSecond, completed.get() / seconds);
+    }
+
+    private static Operation pick(List<Operation> operations, int ticket) {
+        for (Operation operation : operations) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+}
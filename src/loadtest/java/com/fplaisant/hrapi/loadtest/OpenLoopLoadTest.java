@@ -0,0 +1,137 @@
+package com.fplaisant.hrapi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Open-loop load test of a mixed read/search/write/token workload ({@link MixedWorkload}) at a
+ * fixed arrival rate, with an embedded Kafka broker so that the outbox relay publishes for real.
+ * Runs once per dataset size, in increasing order, on the same in-memory H2.
+ *
+ * Fails when the p99 latency, the error rate or the achieved throughput miss the configured SLO,
+ * or, with {@code -Dloadtest.baseline-dir}, when they regress past the tolerance relative to a
+ * previous report.
+ *
+ * mvn -Ploadtest test -Dtest=OpenLoopLoadTest -Dloadtest.rate=1000 -Dloadtest.dataset-sizes=1000,1000000
+ * Reports (JSON summary and HdrHistogram percentile distribution) in target/loadtest
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:openloop;DB_CLOSE_DELAY=-1",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "logging.level.org.springframework.security=ERROR",
+        "logging.level.org.springframework.web=ERROR",
+        "logging.level.org.apache.kafka=WARN",
+        // Mesure de la latence du service, pas de ses protections contre la surcharge
+        "hrapi.ratelimit.enabled=false",
+        "hrapi.admission.enabled=false"
+})
+@EmbeddedKafka(partitions = 1, topics = {"employee-add", "employee-update", "employee-delete"})
+class OpenLoopLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static IntStream datasetSizes() {
+        return Arrays.stream(System.getProperty("loadtest.dataset-sizes", "1000,100000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .sorted();
+    }
+
+    @ParameterizedTest(name = "{0} employees")
+    @MethodSource("datasetSizes")
+    void mixedWorkloadMeetsSlo(int size) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "500"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60));
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 10_000);
+        double p99SloMillis = Double.parseDouble(System.getProperty("loadtest.slo.p99-ms", "250"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.slo.max-error-rate", "0.01"));
+        double minThroughputRatio = Double.parseDouble(System.getProperty("loadtest.slo.min-throughput-ratio", "0.95"));
+
+        long maxId = MixedWorkload.seed(jdbcTemplate, size);
+        HttpClient client = MixedWorkload.client();
+        String token = MixedWorkload.fetchToken(client, port);
+        List<OpenLoopDriver.Operation> operations = MixedWorkload.operations(port, () -> token, maxId);
+
+        // Préchauffage (JIT, caches, pool de connexions) non mesuré
+        OpenLoopDriver.run(client, operations, rate, warmup, maxInFlight, 1);
+        OpenLoopDriver.Result result = OpenLoopDriver.run(client, operations, rate, duration, maxInFlight, 2);
+
+        Histogram total = result.total();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("datasetSize", size);
+        report.put("durationSeconds", duration.toSeconds());
+        report.putAll(result.report());
+        String name = "openloop-" + size;
+        MixedWorkload.writeReport(name, report);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(MixedWorkload.reportDir().resolve(name + ".hgrm")))) {
+            total.outputPercentileDistribution(out, 1000.0);
+        }
+
+        double p99Millis = total.getValueAtPercentile(99) / 1000.0;
+        List<String> violations = new ArrayList<>();
+        if (p99Millis > p99SloMillis) {
+            violations.add(String.format("p99 %.1f ms > %.1f ms", p99Millis, p99SloMillis));
+        }
+        if (result.errors() > maxErrorRate * (result.sent() + result.dropped())) {
+            violations.add(String.format("%d errors out of %d requests", result.errors(), result.sent() + result.dropped()));
+        }
+        if (result.achievedRate() < minThroughputRatio * rate) {
+            violations.add(String.format("throughput %.0f/s < %.0f%% of %.0f/s",
+                    result.achievedRate(), minThroughputRatio * 100, rate));
+        }
+        violations.addAll(regressions(name, p99Millis, result.achievedRate()));
+        assertTrue(violations.isEmpty(), "SLO missed with " + size + " employees: " + violations);
+    }
+
+    /**
+     * Comparaison avec le rapport de même nom de {@code loadtest.baseline-dir}, si présent.
+     */
+    private static List<String> regressions(String name, double p99Millis, double throughput) throws Exception {
+        String baselineDir = System.getProperty("loadtest.baseline-dir");
+        if (baselineDir == null) {
+            return List.of();
+        }
+        Path baselineFile = Path.of(baselineDir, name + ".json");
+        if (!Files.exists(baselineFile)) {
+            return List.of();
+        }
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.slo.regression-tolerance", "0.2"));
+        JsonNode baseline = new ObjectMapper().readTree(baselineFile.toFile());
+        double baselineP99Millis = baseline.path("total").path("p99Micros").asDouble() / 1000.0;
+        double baselineThroughput = baseline.path("achievedRate").asDouble();
+        List<String> regressions = new ArrayList<>();
+        if (baselineP99Millis > 0 && p99Millis > baselineP99Millis * (1 + tolerance)) {
+            regressions.add(String.format("p99 %.1f ms regressed from %.1f ms", p99Millis, baselineP99Millis));
+        }
+        if (throughput < baselineThroughput * (1 - tolerance)) {
+            regressions.add(String.format("throughput %.0f/s regressed from %.0f/s", throughput, baselineThroughput));
+        }
+        return regressions;
+    }
+}
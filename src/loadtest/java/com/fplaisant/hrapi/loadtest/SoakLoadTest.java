@@ -0,0 +1,151 @@
+package com.fplaisant.hrapi.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Soak test: the open-loop mixed workload ({@link MixedWorkload}) at a constant rate for
+ * {@code loadtest.soak-minutes}, reported window by window with latency percentiles, heap
+ * occupancy after the last collection and time spent in GC.
+ *
+ * Fails when a window misses the p99 SLO, when the heap left after collections keeps growing
+ * between the first and the last quarter of the run (leak), or when GC takes more than the
+ * allowed share of the time. The load generator shares the JVM: its allocations are included.
+ *
+ * mvn -Ploadtest test -Dtest=SoakLoadTest -Dloadtest.soak-minutes=120 -Dloadtest.rate=300
+ * Report in target/loadtest/soak.json
+ */
+@EnabledIfSystemProperty(named = "loadtest.soak-minutes", matches = "\\d+")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:soak;DB_CLOSE_DELAY=-1",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "logging.level.org.springframework.security=ERROR",
+        "logging.level.org.springframework.web=ERROR",
+        "logging.level.org.apache.kafka=WARN",
+        "hrapi.ratelimit.enabled=false",
+        "hrapi.admission.enabled=false"
+})
+@EmbeddedKafka(partitions = 1, topics = {"employee-add", "employee-update", "employee-delete"})
+class SoakLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void heapAndLatencyStayFlatUnderSustainedLoad() throws Exception {
+        long minutes = Long.getLong("loadtest.soak-minutes");
+        Duration window = Duration.ofSeconds(Long.getLong("loadtest.soak.window-seconds", 60));
+        int size = Integer.getInteger("loadtest.soak.dataset-size", 100_000);
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "500"));
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 10_000);
+        double p99SloMillis = Double.parseDouble(System.getProperty("loadtest.slo.p99-ms", "250"));
+        double maxHeapGrowth = Double.parseDouble(System.getProperty("loadtest.soak.max-heap-growth", "0.2"));
+        double maxGcOverhead = Double.parseDouble(System.getProperty("loadtest.soak.max-gc-overhead", "0.05"));
+
+        long maxId = MixedWorkload.seed(jdbcTemplate, size);
+        HttpClient client = MixedWorkload.client();
+        long windows = Math.max(4, Duration.ofMinutes(minutes).toNanos() / window.toNanos());
+
+        List<Map<String, Object>> samples = new ArrayList<>();
+        List<String> violations = new ArrayList<>();
+        long previousGcMillis = gcMillis();
+        for (long i = 0; i < windows; i++) {
+            // Nouveau jeton à chaque fenêtre : un soak dure plus longtemps que sa validité
+            String token = MixedWorkload.fetchToken(client, port);
+            long windowStart = System.nanoTime();
+            OpenLoopDriver.Result result = OpenLoopDriver.run(client,
+                    MixedWorkload.operations(port, () -> token, maxId), rate, window, maxInFlight, i);
+            long elapsedMillis = (System.nanoTime() - windowStart) / 1_000_000;
+            long currentGcMillis = gcMillis();
+            double gcOverhead = (currentGcMillis - previousGcMillis) / (double) elapsedMillis;
+            previousGcMillis = currentGcMillis;
+
+            double p99Millis = result.total().getValueAtPercentile(99) / 1000.0;
+            Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("window", i);
+            sample.put("achievedRate", result.achievedRate());
+            sample.put("errors", result.errors());
+            sample.put("p99Millis", p99Millis);
+            sample.put("liveHeapBytes", liveHeapBytes());
+            sample.put("heapUsedBytes", ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+            sample.put("gcOverhead", gcOverhead);
+            samples.add(sample);
+            if (p99Millis > p99SloMillis) {
+                violations.add(String.format("window %d: p99 %.1f ms > %.1f ms", i, p99Millis, p99SloMillis));
+            }
+            if (gcOverhead > maxGcOverhead) {
+                violations.add(String.format("window %d: %.1f%% of the time in GC", i, gcOverhead * 100));
+            }
+        }
+
+        // Premier quart ignoré : montée en charge des caches et du JIT
+        int quarter = samples.size() / 4;
+        double early = averageLiveHeap(samples.subList(quarter, 2 * quarter));
+        double late = averageLiveHeap(samples.subList(samples.size() - quarter, samples.size()));
+        double heapGrowth = early == 0 ? 0 : (late - early) / early;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("datasetSize", size);
+        report.put("targetRate", rate);
+        report.put("windowSeconds", window.toSeconds());
+        report.put("heapGrowth", heapGrowth);
+        report.put("gcCollectors", ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName).toList());
+        report.put("windows", samples);
+        MixedWorkload.writeReport("soak", report);
+
+        if (heapGrowth > maxHeapGrowth) {
+            violations.add(String.format("live heap grew by %.0f%% (%.0f MB to %.0f MB)",
+                    heapGrowth * 100, early / 1e6, late / 1e6));
+        }
+        assertTrue(violations.isEmpty(), "Soak test failed: " + violations);
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    /**
+     * Occupation du tas après la dernière collection de chaque zone : mesure les objets vivants
+     * sans déclencher de GC.
+     */
+    private static long liveHeapBytes() {
+        long live = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                live += usage.getUsed();
+            }
+        }
+        return live;
+    }
+
+    private static double averageLiveHeap(List<Map<String, Object>> samples) {
+        return samples.stream().mapToLong(sample -> (Long) sample.get("liveHeapBytes")).average().orElse(0);
+    }
+}
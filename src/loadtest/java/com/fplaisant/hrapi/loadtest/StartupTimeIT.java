@@ -0,0 +1,119 @@
+package com.fplaisant.hrapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Startup time (process launch to a 200 on /actuator/health) and first-request latency of the
+ * packaged application, started in a separate JVM: plain fat jar, then AOT + CDS archive.
+ *
+ * Run by the aot profile after the CDS training run: mvn -Paot verify
+ * Optional gate: -Dstartup.max-millis=2000 fails the build when the AOT + CDS startup is slower.
+ */
+class StartupTimeIT {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void measureStartup() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("fatJar", measure("fat-jar", List.of(
+                "-jar", System.getProperty("startup.jar"))));
+        Map<String, Long> aotCds = measure("aot-cds", List.of(
+                "-XX:SharedArchiveFile=" + System.getProperty("startup.cds-archive"),
+                "-Dspring.aot.enabled=true",
+                "-Dspring.profiles.active=" + System.getProperty("startup.profiles", "fast-startup"),
+                "-jar", System.getProperty("startup.extracted-jar")));
+        report.put("aotCds", aotCds);
+
+        Path reportDir = Path.of(System.getProperty("startup.report-dir", "target/startup"));
+        Files.createDirectories(reportDir);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportDir.resolve("startup.json").toFile(), report);
+
+        Long maxMillis = Long.getLong("startup.max-millis");
+        if (maxMillis != null) {
+            assertTrue(aotCds.get("startupMillis") <= maxMillis,
+                    "AOT + CDS startup took " + aotCds.get("startupMillis") + " ms, budget " + maxMillis + " ms");
+        }
+    }
+
+    private Map<String, Long> measure(String name, List<String> jvmArguments) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArguments);
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup");
+        Path log = Path.of(System.getProperty("startup.report-dir", "target/startup"), name + ".log");
+        Files.createDirectories(log.getParent());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            URI health = URI.create("http://localhost:" + port + "/actuator/health");
+            while (!isUp(health)) {
+                assertTrue(process.isAlive(), name + " exited during startup, see " + log);
+                assertTrue(System.nanoTime() - start < STARTUP_TIMEOUT.toNanos(), name + " did not start in time");
+                Thread.sleep(20);
+            }
+            long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Première requête authentifiée : crée les beans paresseux du contrôleur et des services
+            String basic = Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/employees"))
+                    .header("Authorization", "Basic " + basic)
+                    .GET()
+                    .build();
+            long requestStart = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long firstRequestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStart);
+            assertEquals(200, response.statusCode());
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            result.put("startupMillis", startupMillis);
+            result.put("firstRequestMillis", firstRequestMillis);
+            return result;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private boolean isUp(URI health) throws InterruptedException {
+        try {
+            return client.send(HttpRequest.newBuilder(health).GET().build(), HttpResponse.BodyHandlers.discarding())
+                    .statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.fplaisant.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtDecoder qui garde les jetons déjà vérifiés jusqu'à leur expiration ({@code exp}),
+ * dans la limite de {@code maxTtl}. Un même jeton réutilisé par la passerelle n'est ainsi
+ * parsé et vérifié (HMAC) qu'une fois.
+ *
+ * La clé de cache est la signature du jeton, c'est-à-dire déjà un HMAC-SHA256 de son contenu :
+ * pas de hachage supplémentaire par requête. Le jeton complet est comparé en cas de hit.
+ * Les jetons invalides ne sont jamais mis en cache. Le temps de décodage est mesuré par
+ * {@code hrapi.jwt.decode}, séparément pour les hits et les miss.
+ *
+ * Un jeton révoqué ({@link TokenRevocationList}) est refusé, qu'il soit en cache ou non : la
+ * vérification est une recherche en mémoire, sans accès à la base.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> decodedTokens;
+    private final TokenRevocationList revocationList;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final Counter revokedCounter;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxTtl,
+                             TokenRevocationList revocationList, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.revocationList = revocationList;
+        this.revokedCounter = Counter.builder("hrapi.jwt.revoked").register(meterRegistry);
+        this.hitTimer = Timer.builder("hrapi.jwt.decode").tag("cache", "hit").register(meterRegistry);
+        this.missTimer = Timer.builder("hrapi.jwt.decode").tag("cache", "miss").register(meterRegistry);
+        this.decodedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new JwtExpiry(maxTtl.toNanos()))
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        String key = cacheKey(token);
+        Jwt jwt = decodedTokens.getIfPresent(key);
+        if (jwt != null && jwt.getTokenValue().equals(token)) {
+            hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return checkNotRevoked(jwt);
+        }
+        try {
+            jwt = delegate.decode(token);
+            decodedTokens.put(key, jwt);
+        } finally {
+            missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return checkNotRevoked(jwt);
+    }
+
+    private Jwt checkNotRevoked(Jwt jwt) {
+        if (revocationList.isRevoked(jwt)) {
+            revokedCounter.increment();
+            throw new BadJwtException("Jeton révoqué");
+        }
+        return jwt;
+    }
+
+    private static String cacheKey(String token) {
+        int signatureStart = token.lastIndexOf('.');
+        return signatureStart < 0 ? token : token.substring(signatureStart + 1);
+    }
+
+    /**
+     * Expire chaque entrée à l'échéance du jeton, plafonnée à {@code maxTtlNanos}.
+     */
+    private static final class JwtExpiry implements Expiry<String, Jwt> {
+        private final long maxTtlNanos;
+
+        private JwtExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.fplaisant.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.JdbcUserDetailsManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Utilisateurs et rôles en base (tables {@code users} et {@code authorities} du schéma standard
+ * de Spring Security), avec un cache des utilisateurs et de leurs rôles : une authentification
+ * Basic ne fait pas de requête tant que l'utilisateur est en cache.
+ *
+ * Les modifications faites par ce nœud évincent l'utilisateur du cache ; celles des autres nœuds
+ * sont vues au plus tard après {@code ttl}. Modifier ou supprimer un utilisateur, ou changer son
+ * mot de passe, révoque aussi ses jetons, qui portent ses anciens rôles.
+ *
+ * Implémente UserDetailsPasswordService : les mots de passe dont l'encodage est obsolète
+ * ({noop}, coût bcrypt inférieur) sont ré-encodés à la connexion.
+ */
+public class CachingUserDetailsManager extends JdbcUserDetailsManager implements UserDetailsPasswordService {
+
+    private static final String UPDATE_PASSWORD_SQL = "UPDATE users SET password = ? WHERE username = ?";
+
+    private final Cache<String, UserDetails> users;
+    private final TokenRevocationStore revocationStore;
+
+    public CachingUserDetailsManager(DataSource dataSource, TokenRevocationStore revocationStore,
+                                     Duration ttl, long maximumSize) {
+        super(dataSource);
+        this.revocationStore = revocationStore;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        setUserCache(new CaffeineUserCache());
+    }
+
+    /**
+     * Renvoie une copie : l'authentification efface le mot de passe de l'utilisateur obtenu,
+     * l'instance en cache doit le garder.
+     */
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails user = users.get(username, super::loadUserByUsername);
+        return User.withUserDetails(user).build();
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        getJdbcTemplate().update(UPDATE_PASSWORD_SQL, newPassword, user.getUsername());
+        users.invalidate(user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        super.updateUser(user);
+        revocationStore.revokeUser(user.getUsername());
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        super.deleteUser(username);
+        revocationStore.revokeUser(username);
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        Authentication currentUser = SecurityContextHolder.getContext().getAuthentication();
+        super.changePassword(oldPassword, newPassword);
+        revocationStore.revokeUser(currentUser.getName());
+    }
+
+    private final class CaffeineUserCache implements UserCache {
+
+        @Override
+        public UserDetails getUserFromCache(String username) {
+            return users.getIfPresent(username);
+        }
+
+        @Override
+        public void putUserInCache(UserDetails user) {
+            users.put(user.getUsername(), user);
+        }
+
+        @Override
+        public void removeUserFromCache(String username) {
+            users.invalidate(username);
+        }
+    }
+}
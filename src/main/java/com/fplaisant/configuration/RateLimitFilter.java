@@ -0,0 +1,95 @@
+package com.fplaisant.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de débit de la chaîne de sécurité, par IP (avant l'authentification : un client qui
+ * rejoue Basic sur {@code /token} n'obtient pas un bcrypt par requête) ou par utilisateur
+ * authentifié (après). Les routes coûteuses ont leur propre budget, plus petit.
+ * Au-delà : 429 avec {@code Retry-After}, compté par {@code hrapi.ratelimit.rejected}.
+ *
+ * La clé IP est {@link HttpServletRequest#getRemoteAddr()}, déjà remplacée par l'adresse du client
+ * transmise par le répartiteur de charge quand {@code server.forward-headers-strategy} est actif :
+ * sans cela, tous les clients derrière le proxy partageraient le même budget.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public enum Scope { IP, PRINCIPAL }
+
+    private final Scope scope;
+    private final RateLimiter defaultLimiter;
+    private final RateLimiter expensiveLimiter;
+    private final Set<String> expensivePaths;
+    private final Counter defaultRejections;
+    private final Counter expensiveRejections;
+
+    public RateLimitFilter(Scope scope, RateLimiter defaultLimiter, RateLimiter expensiveLimiter,
+                           Set<String> expensivePaths, MeterRegistry meterRegistry) {
+        this.scope = scope;
+        this.defaultLimiter = defaultLimiter;
+        this.expensiveLimiter = expensiveLimiter;
+        this.expensivePaths = Set.copyOf(expensivePaths);
+        String scopeTag = scope.name().toLowerCase(Locale.ROOT);
+        this.defaultRejections = Counter.builder("hrapi.ratelimit.rejected")
+                .tag("scope", scopeTag).tag("route", "default").register(meterRegistry);
+        this.expensiveRejections = Counter.builder("hrapi.ratelimit.rejected")
+                .tag("scope", scopeTag).tag("route", "expensive").register(meterRegistry);
+    }
+
+    // Les deux instances (IP, utilisateur) sont dans la même chaîne : chacune son marqueur "déjà filtré"
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return super.getAlreadyFilteredAttributeName() + "." + scope.name();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = scope == Scope.IP ? request.getRemoteAddr() : principalName();
+        if (key != null) {
+            boolean expensive = expensivePaths.contains(request.getRequestURI());
+            long waitNanos = (expensive ? expensiveLimiter : defaultLimiter).tryAcquire(key);
+            if (waitNanos > 0) {
+                (expensive ? expensiveRejections : defaultRejections).increment();
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(waitNanos)));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static String principalName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
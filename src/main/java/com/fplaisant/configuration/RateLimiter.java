@@ -0,0 +1,64 @@
+package com.fplaisant.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Seaux à jetons par clé (IP, utilisateur), sans verrou : chaque seau est un seul {@code long},
+ * l'instant théorique d'arrivée de la prochaine requête (algorithme GCRA, équivalent à un seau
+ * de {@code burst} jetons rempli à {@code permitsPerSecond}). Une requête fait un compareAndSet.
+ *
+ * Les seaux inactifs depuis {@code idleTimeout} sont oubliés (un seau plein ne sert à rien),
+ * et au plus {@code maxKeys} clés sont gardées.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(double permitsPerSecond, int burst, long maxKeys, Duration idleTimeout) {
+        this(permitsPerSecond, burst, maxKeys, idleTimeout, System::nanoTime);
+    }
+
+    RateLimiter(double permitsPerSecond, int burst, long maxKeys, Duration idleTimeout, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Débit et rafale doivent être positifs");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Prend un jeton dans le seau de {@code key}.
+     *
+     * @return 0 si la requête est admise, sinon le délai en nanosecondes avant le prochain jeton
+     */
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long arrival = bucket.get();
+            // Comparaison par différence : nanoTime peut être négatif
+            long next = (arrival - now > 0 ? arrival : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -2,63 +2,184 @@ package com.fplaisant.configuration;
 
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
-import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import javax.crypto.spec.SecretKeySpec;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 
 @Configuration
 public class SecurityConfig {
 
     private String jwtKey = "XFYFrCVon07UkoC6abzdq0FpNdXellaq";
+
+    // Clé HMAC construite une seule fois, partagée par l'encodeur et le décodeur
+    private final SecretKeySpec jwtSecretKey = new SecretKeySpec(jwtKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+    @Value("${hrapi.security.jwt-cache.max-size:10000}")
+    private long jwtCacheMaxSize;
+
+    @Value("${hrapi.security.jwt-cache.max-ttl:10m}")
+    private Duration jwtCacheMaxTtl;
+
+    @Value("${hrapi.security.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${hrapi.security.credential-cache.ttl:60s}")
+    private Duration credentialCacheTtl;
+
+    @Value("${hrapi.security.credential-cache.max-size:10000}")
+    private long credentialCacheMaxSize;
+
+    @Value("${hrapi.security.token-validity:1d}")
+    private Duration tokenValidity;
+
+    @Value("${hrapi.security.user-cache.ttl:5m}")
+    private Duration userCacheTtl;
+
+    @Value("${hrapi.security.user-cache.max-size:10000}")
+    private long userCacheMaxSize;
+
+    @Value("${hrapi.ratelimit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${hrapi.ratelimit.ip.rate:200}")
+    private double ipRate;
+
+    @Value("${hrapi.ratelimit.ip.burst:400}")
+    private int ipBurst;
+
+    @Value("${hrapi.ratelimit.principal.rate:100}")
+    private double principalRate;
+
+    @Value("${hrapi.ratelimit.principal.burst:200}")
+    private int principalBurst;
+
+    @Value("${hrapi.ratelimit.expensive.rate:5}")
+    private double expensiveRate;
+
+    @Value("${hrapi.ratelimit.expensive.burst:10}")
+    private int expensiveBurst;
+
+    @Value("${hrapi.ratelimit.expensive-paths:/token,/employees/import,/employees/export}")
+    private Set<String> expensivePaths;
+
+    @Value("${hrapi.ratelimit.max-keys:100000}")
+    private long rateLimitMaxKeys;
+
+    @Value("${hrapi.ratelimit.idle-timeout:10m}")
+    private Duration rateLimitIdleTimeout;
+
+    @Bean
+    public JwtDecoder jwtDecoder(TokenRevocationList tokenRevocationList, MeterRegistry meterRegistry) {
+        JwtDecoder nimbusDecoder = NimbusJwtDecoder.withSecretKey(jwtSecretKey).macAlgorithm(MacAlgorithm.HS256).build();
+        return new CachingJwtDecoder(nimbusDecoder, jwtCacheMaxSize, jwtCacheMaxTtl, tokenRevocationList, meterRegistry);
+    }
+
+    /**
+     * Autorités lues dans la revendication {@code roles} du jeton (ROLE_USER...), sans préfixe
+     * SCOPE_ ajouté.
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        SecretKeySpec secretKey = new SecretKeySpec(this.jwtKey.getBytes(), 0, this.jwtKey.getBytes().length, "RSA");
-        return NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName("roles");
+        authoritiesConverter.setAuthorityPrefix("");
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return converter;
+    }
+
+    @Bean
+    public TokenRevocationList tokenRevocationList() {
+        return new TokenRevocationList();
+    }
+
+    @Bean
+    public TokenRevocationStore tokenRevocationStore(JdbcTemplate jdbcTemplate, TokenRevocationList tokenRevocationList) {
+        return new TokenRevocationStore(jdbcTemplate, tokenRevocationList, tokenValidity);
     }
 
     @Bean
     public JwtEncoder jwtEncoder() {
-        return new NimbusJwtEncoder(new ImmutableSecret<>(this.jwtKey.getBytes()));
+        return new NimbusJwtEncoder(new ImmutableSecret<>(jwtSecretKey));
     }
 
+    /**
+     * Limites de débit : par IP avant toute authentification (protège le bcrypt de /token et de
+     * Basic), puis par utilisateur une fois authentifié.
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, MeterRegistry meterRegistry) throws Exception {
+        if (rateLimitEnabled) {
+            http.addFilterBefore(rateLimitFilter(RateLimitFilter.Scope.IP, ipRate, ipBurst, meterRegistry),
+                            BearerTokenAuthenticationFilter.class)
+                    .addFilterAfter(rateLimitFilter(RateLimitFilter.Scope.PRINCIPAL, principalRate, principalBurst, meterRegistry),
+                            BasicAuthenticationFilter.class);
+        }
         return http.csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/users/**").hasRole("ADMIN")
+                        .anyRequest().authenticated())
                 .oauth2ResourceServer((oauth2) -> oauth2.jwt(Customizer.withDefaults()))
                 .httpBasic(Customizer.withDefaults()).build();
     }
 
+    private RateLimitFilter rateLimitFilter(RateLimitFilter.Scope scope, double rate, int burst, MeterRegistry meterRegistry) {
+        RateLimiter defaultLimiter = new RateLimiter(rate, burst, rateLimitMaxKeys, rateLimitIdleTimeout);
+        RateLimiter expensiveLimiter = new RateLimiter(expensiveRate, expensiveBurst, rateLimitMaxKeys, rateLimitIdleTimeout);
+        return new RateLimitFilter(scope, defaultLimiter, expensiveLimiter, expensivePaths, meterRegistry);
+    }
+
+    /**
+     * Utilisateurs en base avec cache, voir {@link CachingUserDetailsManager}.
+     */
     @Bean
-    public UserDetailsService users() {
-        UserDetails user = User.builder().username("user").password(passwordEncoder().encode("password")).roles("USER")
-                .build();
-        return new InMemoryUserDetailsManager(user);
+    public CachingUserDetailsManager users(DataSource dataSource, TokenRevocationStore tokenRevocationStore) {
+        return new CachingUserDetailsManager(dataSource, tokenRevocationStore, userCacheTtl, userCacheMaxSize);
     }
 
 
+    /**
+     * Encodeur délégant : les hash sont préfixés par leur algorithme ({bcrypt}...), ce qui permet
+     * de changer de paramètres sans invalider les hash existants. upgradeEncoding() signale les
+     * hash d'un autre algorithme ou d'un coût bcrypt inférieur, qui sont alors ré-encodés.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        PasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder("bcrypt", encoders);
+        return new CachingPasswordEncoder(delegatingEncoder, credentialCacheTtl, credentialCacheMaxSize);
     }
 
 
@@ -0,0 +1,80 @@
+package com.fplaisant.configuration;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jetons révoqués encore valides, vérifiés à chaque requête par {@link CachingJwtDecoder} :
+ * une recherche par {@code jti} et une par utilisateur, sans accès à la base.
+ *
+ * Une révocation n'est gardée que jusqu'à l'expiration des jetons qu'elle vise : la liste ne
+ * contient que les révocations de la durée de validité d'un jeton, quel que soit l'historique.
+ */
+public class TokenRevocationList {
+
+    /**
+     * Instant d'émission en microsecondes depuis l'epoch : {@code iat} n'est qu'à la seconde et ne
+     * permet pas de distinguer les jetons émis juste avant ou juste après une révocation.
+     */
+    public static final String ISSUED_AT_MICROS_CLAIM = "iat_us";
+
+    private record UserRevocation(Instant issuedBefore, Instant expiresAt) {
+    }
+
+    // jti -> expiration du jeton
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+
+    public void revokeToken(String jti, Instant expiresAt) {
+        revokedTokens.put(jti, expiresAt);
+    }
+
+    /**
+     * Révoque les jetons de l'utilisateur émis avant {@code issuedBefore} (exclu, comparé à
+     * {@link #ISSUED_AT_MICROS_CLAIM}), jusqu'à {@code expiresAt} au-delà duquel ils ont tous expiré.
+     */
+    public void revokeUser(String username, Instant issuedBefore, Instant expiresAt) {
+        revokedUsers.merge(username, new UserRevocation(issuedBefore, expiresAt),
+                (current, revocation) -> current.issuedBefore().isAfter(revocation.issuedBefore()) ? current : revocation);
+    }
+
+    public boolean isRevoked(Jwt jwt) {
+        if (!revokedTokens.isEmpty() && jwt.getId() != null && revokedTokens.containsKey(jwt.getId())) {
+            return true;
+        }
+        if (revokedUsers.isEmpty() || jwt.getSubject() == null) {
+            return false;
+        }
+        UserRevocation revocation = revokedUsers.get(jwt.getSubject());
+        if (revocation == null) {
+            return false;
+        }
+        Instant issuedAt = issuedAt(jwt);
+        return issuedAt == null || issuedAt.isBefore(revocation.issuedBefore());
+    }
+
+    /**
+     * Instant d'émission exact, ou {@code iat} pour un jeton sans {@link #ISSUED_AT_MICROS_CLAIM} :
+     * tronqué à la seconde, il est alors révoqué s'il date de la seconde de la révocation.
+     */
+    private static Instant issuedAt(Jwt jwt) {
+        Object micros = jwt.getClaims().get(ISSUED_AT_MICROS_CLAIM);
+        if (micros instanceof Number number) {
+            return Instant.EPOCH.plus(number.longValue(), ChronoUnit.MICROS);
+        }
+        return jwt.getIssuedAt();
+    }
+
+    public void purgeExpired(Instant now) {
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        revokedUsers.values().removeIf(revocation -> !revocation.expiresAt().isAfter(now));
+    }
+
+    public int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+}
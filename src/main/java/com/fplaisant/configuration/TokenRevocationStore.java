@@ -0,0 +1,77 @@
+package com.fplaisant.configuration;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Révocations persistées dans {@code token_revocation} et reportées dans la
+ * {@link TokenRevocationList} de chaque nœud : immédiatement sur le nœud qui révoque, au
+ * rafraîchissement suivant ({@code hrapi.security.revocation.refresh-ms}) sur les autres et
+ * au démarrage.
+ */
+public class TokenRevocationStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TokenRevocationList revocationList;
+    private final Duration tokenValidity;
+
+    public TokenRevocationStore(JdbcTemplate jdbcTemplate, TokenRevocationList revocationList, Duration tokenValidity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.revocationList = revocationList;
+        this.tokenValidity = tokenValidity;
+    }
+
+    /**
+     * Révoque un jeton, identifié par son {@code jti}.
+     */
+    public void revokeToken(Jwt jwt) {
+        if (jwt.getId() == null) {
+            throw new IllegalArgumentException("Jeton sans identifiant (jti)");
+        }
+        Instant expiresAt = jwt.getExpiresAt() == null ? Instant.now().plus(tokenValidity) : jwt.getExpiresAt();
+        jdbcTemplate.update("INSERT INTO token_revocation (jti, username, issued_before, expires_at) VALUES (?, ?, NULL, ?)",
+                jwt.getId(), jwt.getSubject(), Timestamp.from(expiresAt));
+        revocationList.revokeToken(jwt.getId(), expiresAt);
+    }
+
+    /**
+     * Révoque tous les jetons déjà émis pour l'utilisateur. L'instant est à la microseconde, comme
+     * en base et dans les jetons.
+     */
+    public void revokeUser(String username) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Instant expiresAt = now.plus(tokenValidity);
+        jdbcTemplate.update("INSERT INTO token_revocation (jti, username, issued_before, expires_at) VALUES (NULL, ?, ?, ?)",
+                username, Timestamp.from(now), Timestamp.from(expiresAt));
+        revocationList.revokeUser(username, now, expiresAt);
+    }
+
+    /**
+     * Ajoute les révocations des autres nœuds et oublie celles dont les jetons ont expiré. La
+     * liste n'est jamais remplacée : une révocation locale concurrente ne peut pas être perdue.
+     */
+    @Scheduled(fixedDelayString = "${hrapi.security.revocation.refresh-ms:5000}")
+    public void refresh() {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.query("SELECT jti, username, issued_before, expires_at FROM token_revocation WHERE expires_at > ?",
+                (RowCallbackHandler) rs -> {
+                    Instant expiresAt = rs.getTimestamp("expires_at").toInstant();
+                    String jti = rs.getString("jti");
+                    if (jti != null) {
+                        revocationList.revokeToken(jti, expiresAt);
+                    } else {
+                        revocationList.revokeUser(rs.getString("username"),
+                                rs.getTimestamp("issued_before").toInstant(), expiresAt);
+                    }
+                }, now);
+        revocationList.purgeExpired(now.toInstant());
+        jdbcTemplate.update("DELETE FROM token_revocation WHERE expires_at <= ?", now);
+    }
+}
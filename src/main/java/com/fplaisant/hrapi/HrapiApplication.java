@@ -2,10 +2,16 @@ package com.fplaisant.hrapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = "com.fplaisant")
+@EnableScheduling
+// Le cache enveloppe la transaction : les évictions ont lieu après le commit
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 public class HrapiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,118 @@
+package com.fplaisant.hrapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Contrôle d'admission global : au plus {@code hrapi.admission.max-concurrent} requêtes en cours.
+ * Au-delà, la requête est rejetée tout de suite en 503 avec {@code Retry-After} plutôt que
+ * d'allonger la latence de toutes les autres. Pas de file d'attente : une requête en attente
+ * d'une place bloquerait un thread Tomcat, et c'est le client qui réessaie.
+ *
+ * Placé avant la sécurité : les authentifications (bcrypt) comptent aussi. Une réponse asynchrone
+ * (export, NDJSON) garde sa place jusqu'à la fin de l'écriture.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+@ConditionalOnProperty(name = "hrapi.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long retryAfterSeconds;
+    private final Counter rejections;
+
+    public ConcurrencyLimitFilter(@Value("${hrapi.admission.max-concurrent:200}") int maxConcurrent,
+                                  @Value("${hrapi.admission.retry-after:1s}") Duration retryAfter,
+                                  MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.rejections = Counter.builder("hrapi.admission.rejected")
+                .tag("reason", "saturated").register(meterRegistry);
+        Gauge.builder("hrapi.admission.in-flight", permits, p -> maxConcurrent - p.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Les sondes et le scrape Prometheus doivent répondre même en surcharge
+        return request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!permits.tryAcquire()) {
+            rejections.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return;
+        }
+        boolean releasedLater = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener());
+                releasedLater = true;
+            }
+        } finally {
+            if (!releasedLater) {
+                permits.release();
+            }
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private final class ReleasingListener implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nouveau cycle asynchrone : réenregistrer le listener pour ne pas perdre la libération
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.fplaisant.hrapi.config;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.service.EmployeeProtobufCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Réponses {@code application/x-protobuf} pour un employé et les listes d'employés
+ * (message EmployeeList), choisies par l'en-tête Accept. JSON reste le format par défaut.
+ * En écriture seulement : les requêtes restent en JSON.
+ */
+public class EmployeeProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final EmployeeProtobufCodec protobufCodec;
+
+    public EmployeeProtobufHttpMessageConverter(EmployeeProtobufCodec protobufCodec) {
+        super(MediaType.parseMediaType(EmployeeProtobufCodec.MEDIA_TYPE));
+        this.protobufCodec = protobufCodec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Employee.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    // Le type déclaré distingue Iterable<Employee> des autres collections (listes d'erreurs...)
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (Employee.class.isAssignableFrom(clazz)) {
+            return true;
+        }
+        return Iterable.class.isAssignableFrom(clazz)
+                && type instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments().length == 1
+                && parameterized.getActualTypeArguments()[0] == Employee.class;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return Employee.class.isAssignableFrom(clazz) || Iterable.class.isAssignableFrom(clazz)
+                ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Employee employee) {
+            outputMessage.getBody().write(protobufCodec.encode(employee));
+        } else {
+            protobufCodec.writeEmployees((Iterable<Employee>) body, outputMessage.getBody());
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Requêtes protobuf non supportées", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Requêtes protobuf non supportées", inputMessage);
+    }
+}
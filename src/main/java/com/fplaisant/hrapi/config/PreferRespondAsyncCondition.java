@@ -0,0 +1,85 @@
+package com.fplaisant.hrapi.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+
+import java.util.Enumeration;
+import java.util.Locale;
+
+/**
+ * Condition des mappings {@link com.fplaisant.hrapi.controller.RespondAsync} : vraie si l'une
+ * des préférences de l'en-tête {@code Prefer} est {@code respond-async}. L'en-tête est analysé
+ * selon la RFC 7240 : préférences séparées par des virgules, éventuellement sur plusieurs lignes,
+ * chacune avec une valeur ({@code wait=5}) et des paramètres ({@code ;foo="a,b"}) ignorés ici.
+ */
+public final class PreferRespondAsyncCondition implements RequestCondition<PreferRespondAsyncCondition> {
+
+    public static final PreferRespondAsyncCondition INSTANCE = new PreferRespondAsyncCondition();
+
+    static final String PREFER = "Prefer";
+    static final String RESPOND_ASYNC = "respond-async";
+
+    private PreferRespondAsyncCondition() {
+    }
+
+    @Override
+    public PreferRespondAsyncCondition combine(PreferRespondAsyncCondition other) {
+        return this;
+    }
+
+    @Override
+    public PreferRespondAsyncCondition getMatchingCondition(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(PREFER);
+        while (values != null && values.hasMoreElements()) {
+            if (prefersRespondAsync(values.nextElement())) {
+                return this;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int compareTo(PreferRespondAsyncCondition other, HttpServletRequest request) {
+        return 0;
+    }
+
+    /**
+     * Vrai si une préférence de la valeur d'en-tête porte le nom {@code respond-async}
+     * (insensible à la casse). Les virgules entre guillemets ne séparent pas les préférences.
+     */
+    static boolean prefersRespondAsync(String header) {
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= header.length(); i++) {
+            char c = i < header.length() ? header.charAt(i) : ',';
+            if (quoted) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (RESPOND_ASYNC.equals(preferenceName(header.substring(start, i)))) {
+                    return true;
+                }
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
+    // Nom de la préférence : avant le premier '=' ou ';'
+    private static String preferenceName(String preference) {
+        int end = preference.length();
+        for (int i = 0; i < preference.length(); i++) {
+            char c = preference.charAt(i);
+            if (c == '=' || c == ';') {
+                end = i;
+                break;
+            }
+        }
+        return preference.substring(0, end).trim().toLowerCase(Locale.ROOT);
+    }
+}
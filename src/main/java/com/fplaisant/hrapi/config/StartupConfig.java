@@ -0,0 +1,35 @@
+package com.fplaisant.hrapi.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.reflect.Method;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Avec {@code spring.main.lazy-initialization} (profil fast-startup), les beans qui portent
+     * des méthodes @Scheduled, @KafkaListener ou @EventListener restent créés au démarrage :
+     * créés à la demande, leurs tâches ne seraient jamais planifiées ni leurs états alimentés.
+     * Les contrôleurs et services appelés rarement (import, export, recherche) sont créés à la première requête.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && !MethodIntrospector.selectMethods(beanType, StartupConfig::backgroundMethod).isEmpty();
+    }
+
+    private static Boolean backgroundMethod(Method method) {
+        boolean background = AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                || AnnotatedElementUtils.hasAnnotation(method, KafkaListener.class)
+                || AnnotatedElementUtils.hasAnnotation(method, EventListener.class);
+        return background ? Boolean.TRUE : null;
+    }
+}
@@ -1,12 +1,29 @@
 package com.fplaisant.hrapi.config;
 
+import com.fplaisant.hrapi.controller.RespondAsync;
+import com.fplaisant.hrapi.service.EmployeeProtobufCodec;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.List;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final EmployeeProtobufCodec protobufCodec;
+
+    public WebConfig(EmployeeProtobufCodec protobufCodec) {
+        this.protobufCodec = protobufCodec;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/ws/**")
@@ -14,4 +31,32 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE")
                 .allowCredentials(true);
     }
+
+    /**
+     * Sélectionne les mappings {@link RespondAsync} d'après l'en-tête Prefer, ce que {@code headers}
+     * ne permet pas : la valeur peut contenir d'autres préférences et paramètres.
+     */
+    @Bean
+    public WebMvcRegistrations respondAsyncRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new RequestMappingHandlerMapping() {
+                    @Override
+                    protected RequestCondition<?> getCustomMethodCondition(Method method) {
+                        return AnnotatedElementUtils.hasAnnotation(method, RespondAsync.class)
+                                ? PreferRespondAsyncCondition.INSTANCE : null;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Ajouté après les convertisseurs par défaut : JSON reste servi quand Accept est absent ou générique.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new EmployeeProtobufHttpMessageConverter(protobufCodec));
+    }
 }
@@ -1,20 +1,40 @@
 package com.fplaisant.hrapi.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${hrapi.websocket.inbound-pool-size:4}")
+    private int inboundPoolSize;
+
+    @Value("${hrapi.websocket.outbound-pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${hrapi.websocket.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${hrapi.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${hrapi.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Active un broker simple pour les messages envoyés au client (WebApp)
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().taskExecutor()
+                .corePoolSize(outboundPoolSize).maxPoolSize(outboundPoolSize).queueCapacity(queueCapacity);
     }
 
     @Override
@@ -23,4 +43,25 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("http://localhost:*") // 🔹 Autorise toutes les variantes de localhost
                 .withSockJS(); // Active SockJS pour compatibilité navigateur
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize).maxPoolSize(inboundPoolSize).queueCapacity(queueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Files bornées : au-delà, l'envoi est rejeté plutôt que de faire grossir la mémoire
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize).maxPoolSize(outboundPoolSize).queueCapacity(queueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Un client trop lent (tampon plein ou envoi bloqué trop longtemps) est déconnecté ;
+        // il se reconnecte et reprend depuis sa dernière version
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit);
+    }
+}
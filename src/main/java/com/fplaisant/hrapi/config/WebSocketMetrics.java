@@ -0,0 +1,51 @@
+package com.fplaisant.hrapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Métriques du broker STOMP configuré dans {@link WebSocketConfig} : sessions ouvertes et
+ * profondeur des files des canaux entrant et sortant.
+ */
+@Component
+public class WebSocketMetrics {
+
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    public WebSocketMetrics(MeterRegistry meterRegistry,
+                            @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+                            @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+        Gauge.builder("hrapi.websocket.sessions", sessions, AtomicInteger::get)
+                .register(meterRegistry);
+        registerQueueDepth(meterRegistry, "inbound", inboundExecutor);
+        registerQueueDepth(meterRegistry, "outbound", outboundExecutor);
+    }
+
+    private static void registerQueueDepth(MeterRegistry meterRegistry, String channel, Executor executor) {
+        // Beans déclarés en Executor depuis Spring 6.2 ; seuls les pools de threads ont une file mesurable
+        if (executor instanceof ThreadPoolTaskExecutor threadPool) {
+            Gauge.builder("hrapi.websocket.queue.depth", threadPool, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        sessions.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        sessions.decrementAndGet();
+    }
+}
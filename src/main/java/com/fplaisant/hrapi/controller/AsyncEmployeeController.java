@@ -0,0 +1,71 @@
+package com.fplaisant.hrapi.controller;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.WriteOperation;
+import com.fplaisant.hrapi.model.WriteOperationStatus;
+import com.fplaisant.hrapi.service.AsyncWriteService;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ecritures asynchrones, demandées par la préférence {@code respond-async} de l'en-tête
+ * {@code Prefer} (RFC 7240, voir {@link RespondAsync}) : l'employé est validé, l'opération inscrite
+ * au journal et la réponse 202 donne son URL de suivi ({@code GET /operations/{id}}).
+ *
+ * Sans {@code hrapi.async-writes.enabled}, l'en-tête est ignoré et {@link EmployeeController}
+ * traite la requête de façon synchrone.
+ */
+@RestController
+@ConditionalOnProperty(name = "hrapi.async-writes.enabled", havingValue = "true")
+public class AsyncEmployeeController {
+
+    private final AsyncWriteService asyncWriteService;
+
+    public AsyncEmployeeController(AsyncWriteService asyncWriteService) {
+        this.asyncWriteService = asyncWriteService;
+    }
+
+    @PostMapping("/employee")
+    @RespondAsync
+    public ResponseEntity<?> addEmployee(@Valid @RequestBody Employee employee, BindingResult result) {
+        if (result.hasErrors()) {
+            List<String> errors = result.getFieldErrors().stream()
+                    .map(error -> error.getField() + " : " + error.getDefaultMessage())
+                    .collect(Collectors.toList());
+            return ResponseEntity.badRequest().body(errors);
+        }
+        return accepted(asyncWriteService.submit(WriteOperation.Type.CREATE, null, employee));
+    }
+
+    @PutMapping("/employee/{id}")
+    @RespondAsync
+    public ResponseEntity<WriteOperationStatus> updateEmployee(@PathVariable("id") final Long id,
+                                                               @Valid @RequestBody Employee newEmployee) {
+        return accepted(asyncWriteService.submit(WriteOperation.Type.UPDATE, id, newEmployee));
+    }
+
+    @DeleteMapping("/employee/{id}")
+    @RespondAsync
+    public ResponseEntity<WriteOperationStatus> deleteEmployee(@PathVariable("id") final Long id) {
+        return accepted(asyncWriteService.submit(WriteOperation.Type.DELETE, id, null));
+    }
+
+    @GetMapping("/operations/{id}")
+    public ResponseEntity<WriteOperationStatus> getOperation(@PathVariable("id") final long id) {
+        return ResponseEntity.of(asyncWriteService.getStatus(id));
+    }
+
+    private static ResponseEntity<WriteOperationStatus> accepted(WriteOperationStatus status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/operations/" + status.getId()))
+                .header("Preference-Applied", "respond-async")
+                .body(status);
+    }
+}
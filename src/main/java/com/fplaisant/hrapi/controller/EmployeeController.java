@@ -1,33 +1,65 @@
 package com.fplaisant.hrapi.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fplaisant.hrapi.model.Employee;
-import com.fplaisant.hrapi.service.EmployeeProducer;
+import com.fplaisant.hrapi.model.EmployeePatch;
+import com.fplaisant.hrapi.model.EmployeeSuggestion;
+import com.fplaisant.hrapi.model.ImportReport;
+import com.fplaisant.hrapi.service.EmployeeBulkService;
+import com.fplaisant.hrapi.service.EmployeePatchService;
+import com.fplaisant.hrapi.service.EmployeePrefixIndex;
+import com.fplaisant.hrapi.service.EmployeeSearchService;
 import com.fplaisant.hrapi.service.EmployeeService;
+import com.fplaisant.hrapi.service.EmployeeVersionTracker;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.swing.text.html.Option;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
 public class EmployeeController {
 
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final String VERSION_HEADER = "X-Employees-Version";
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_MERGE_PATCH = "application/merge-patch+json";
+
     @Autowired
     private EmployeeService employeeService;
 
     @Autowired
-    private EmployeeProducer employeeProducer;
+    private EmployeeBulkService employeeBulkService;
+
+    @Autowired
+    private EmployeeVersionTracker employeeVersionTracker;
 
-    private ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private EmployeeSearchService employeeSearchService;
 
+    @Autowired
+    private EmployeePatchService employeePatchService;
 
+    // ObjectMapper partagé de l'application (thread-safe), configuré par Spring Boot
+    @Autowired
+    private ObjectMapper objectMapper;
 
 
     @GetMapping("/")
@@ -36,28 +68,113 @@ public class EmployeeController {
     }
 
 
+    /**
+     * ETag = version de la collection, lue avant les données : si elle n'a pas bougé depuis
+     * le dernier appel du client, on répond 304 sans requête ni sérialisation.
+     * JSON par défaut, protobuf (message EmployeeList) avec {@code Accept: application/x-protobuf}.
+     */
     @GetMapping("/employees")
-    public Iterable<Employee> getEmployees() {
+    public Iterable<Employee> getEmployees(WebRequest request) {
+        if (request.checkNotModified(Long.toString(employeeVersionTracker.currentVersion()))) {
+            return null;
+        }
         return employeeService.getEmployees();
     }
 
+    @GetMapping("/employees/page")
+    public List<Employee> getEmployeesPage(@RequestParam(name = "afterId", defaultValue = "0") final Long afterId,
+                                           @RequestParam(name = "size", defaultValue = "100") final int size,
+                                           WebRequest request) {
+        if (request.checkNotModified(Long.toString(employeeVersionTracker.currentVersion()))) {
+            return null;
+        }
+        return employeeService.getEmployeesAfter(afterId, size);
+    }
+
+    /**
+     * Filtres par préfixe (firstName, lastName, mailPrefix) ou mail exact, tri et pagination :
+     * ?lastName=dup&sort=lastName,asc&page=0&size=20
+     */
+    @GetMapping("/employees/search")
+    public ResponseEntity<?> searchEmployees(@RequestParam(name = "firstName", required = false) final String firstName,
+                                             @RequestParam(name = "lastName", required = false) final String lastName,
+                                             @RequestParam(name = "mail", required = false) final String mail,
+                                             @RequestParam(name = "mailPrefix", required = false) final String mailPrefix,
+                                             @PageableDefault(size = 20) final Pageable pageable) {
+        try {
+            return ResponseEntity.ok(new PagedModel<>(
+                    employeeSearchService.search(firstName, lastName, mail, mailPrefix, pageable)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(List.of(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/employees/suggest")
+    public ResponseEntity<?> suggestEmployees(@RequestParam("prefix") final String prefix,
+                                              @RequestParam(name = "field", defaultValue = "lastName") final String field,
+                                              @RequestParam(name = "limit", defaultValue = "10") final int limit) {
+        try {
+            List<EmployeeSuggestion> suggestions = employeeSearchService.suggest(
+                    EmployeePrefixIndex.Field.fromParameter(field), prefix, limit);
+            return ResponseEntity.ok(suggestions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(List.of(e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/employees", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamEmployees() {
+        // Un employé par ligne, écrit au fil du curseur : la mémoire utilisée ne dépend pas de la taille de la table
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(Employee.class)
+                    .withRootValueSeparator("\n")
+                    .writeValues(StreamUtils.nonClosing(outputStream))) {
+                employeeService.streamSnapshot(employee -> {
+                    try {
+                        writer.write(employee);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        // Version lue avant le snapshot, tous deux sur le primaire : le client rejoue ensuite les événements de version supérieure
+        long version = employeeService.currentEventVersion();
+        return ResponseEntity.ok().header(VERSION_HEADER, Long.toString(version)).body(body);
+    }
+
+    @PostMapping(value = "/employees/import", consumes = TEXT_CSV)
+    public ImportReport importEmployeesCsv(InputStream body) throws IOException {
+        return employeeBulkService.importCsv(body);
+    }
+
+    @PostMapping(value = "/employees/import", consumes = APPLICATION_NDJSON)
+    public ImportReport importEmployeesNdjson(InputStream body) throws IOException {
+        return employeeBulkService.importNdjson(body);
+    }
+
+    @GetMapping(value = "/employees/export", produces = TEXT_CSV)
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        StreamingResponseBody body = employeeBulkService::exportCsv;
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     * ETag = id et version JPA de l'employé, lus depuis le cache.
+     */
     @GetMapping("/employee/{id}")
-    public Employee getEmployee(@PathVariable("id") final Long id) {
+    public Employee getEmployee(@PathVariable("id") final Long id, WebRequest request) {
         Optional<Employee> employee = employeeService.getEmployee(id);
+        if (employee.isPresent() && request.checkNotModified(id + "-" + employee.get().getVersion())) {
+            return null;
+        }
 
         return employee.orElse(null);
     }
 
     @DeleteMapping("/employee/{id}")
     public void deleteEmployee(@PathVariable("id") final Long id) {
-        employeeService.deleteEmployee(id);
-        String listEmployee = null;
-        try {
-            listEmployee = objectMapper.writeValueAsString(employeeService.getEmployees());
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
-        employeeProducer.sendEmployeeEvent("employee-delete", listEmployee);
+        employeeService.removeEmployee(id);
     }
 
     @PostMapping("/employee")
@@ -71,40 +188,85 @@ public class EmployeeController {
             return ResponseEntity.badRequest().body(errors); // Retourne la liste des erreurs en JSON
         }
 
-        Employee savedEmployee = employeeService.saveEmployee(employee);
-        String listEmployee = null;
-        try {
-            listEmployee = objectMapper.writeValueAsString(employeeService.getEmployees());
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
-        employeeProducer.sendEmployeeEvent("employee-add", listEmployee);
+        Employee savedEmployee = employeeService.createEmployee(employee);
         return ResponseEntity.ok(savedEmployee);
     }
 
 
-    @PutMapping("/employee/{id}")
-    public Employee updateEmployee(@PathVariable("id") final Long id, @Valid @RequestBody Employee newEmployee) {
-        Optional<Employee> employee = employeeService.getEmployee(id);
-        if(employee.isPresent()) {
-            Employee currentEmployee = employee.get();
-            if(newEmployee.getFirstName() != null) currentEmployee.setFirstName(newEmployee.getFirstName());
-            if(newEmployee.getLastName() != null) currentEmployee.setLastName(newEmployee.getLastName());
-            if(newEmployee.getMail() != null) currentEmployee.setMail(newEmployee.getMail());
-            if(newEmployee.getPassword() != null) currentEmployee.setPassword(newEmployee.getPassword());
-            employeeService.saveEmployee(currentEmployee);
-            String listEmployee = null;
-            try {
-                listEmployee = objectMapper.writeValueAsString(employeeService.getEmployees());
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException(e);
+    /**
+     * JSON Merge Patch : un seul UPDATE des champs présents. Avec If-Match (ETag renvoyé par
+     * GET /employee/{id}), la modification échoue en 412 si l'employé a changé entre-temps.
+     */
+    @PatchMapping(value = "/employee/{id}", consumes = APPLICATION_MERGE_PATCH)
+    public ResponseEntity<?> patchEmployee(@PathVariable("id") final Long id,
+                                           @RequestBody Map<String, Object> changes,
+                                           @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        List<String> errors = employeePatchService.validate(changes);
+        Long expectedVersion = null;
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            expectedVersion = parseETagVersion(id, ifMatch);
+            if (expectedVersion == null) {
+                errors.add("If-Match invalide : " + ifMatch);
             }
-            employeeProducer.sendEmployeeEvent("employee-update", listEmployee);
-            return currentEmployee;
-        } else {
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(errors);
+        }
+        try {
+            if (!employeePatchService.patch(id, changes, expectedVersion)) {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(List.of(e.getMessage()));
+        }
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent();
+        if (expectedVersion != null) {
+            response.eTag(id + "-" + (expectedVersion + 1));
+        }
+        return response.build();
+    }
+
+    /**
+     * Modifications partielles de plusieurs employés dans une seule transaction.
+     */
+    @PatchMapping(value = "/employees", consumes = "application/json")
+    public ResponseEntity<?> patchEmployees(@RequestBody List<EmployeePatch> patches) {
+        List<String> errors = employeePatchService.validateAll(patches);
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(errors);
+        }
+        try {
+            return ResponseEntity.ok(employeePatchService.patchAll(patches));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(List.of(e.getMessage()));
+        }
+    }
+
+    /**
+     * Version contenue dans un ETag "id-version", ou null s'il ne correspond pas à cet employé.
+     */
+    static Long parseETagVersion(Long id, String eTag) {
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        String prefix = id + "-";
+        if (!value.startsWith(prefix)) {
             return null;
         }
+        try {
+            return Long.parseLong(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 
+    @PutMapping("/employee/{id}")
+    public Employee updateEmployee(@PathVariable("id") final Long id, @Valid @RequestBody Employee newEmployee) {
+        Optional<Employee> employee = employeeService.updateEmployee(id, newEmployee);
+
+        return employee.orElse(null);
     }
 
 }
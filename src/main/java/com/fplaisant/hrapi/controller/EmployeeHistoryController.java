@@ -0,0 +1,63 @@
+package com.fplaisant.hrapi.controller;
+
+import com.fplaisant.hrapi.model.EmployeeHistoryEntry;
+import com.fplaisant.hrapi.service.EmployeeAuditService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Historique des employés : modifications sur une période (pagination par {@code afterId},
+ * l'id de la dernière entrée reçue) et état d'un employé à un instant donné.
+ * Les instants sont au format ISO-8601 ({@code 2024-03-01T12:00:00Z}).
+ */
+@RestController
+public class EmployeeHistoryController {
+
+    private final EmployeeAuditService employeeAuditService;
+
+    public EmployeeHistoryController(EmployeeAuditService employeeAuditService) {
+        this.employeeAuditService = employeeAuditService;
+    }
+
+    @GetMapping("/employee/{id}/history")
+    public List<EmployeeHistoryEntry> getEmployeeHistory(
+            @PathVariable("id") final Long id,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final Instant from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final Instant to,
+            @RequestParam(name = "afterId", defaultValue = "0") final long afterId,
+            @RequestParam(name = "size", defaultValue = "100") final int size) {
+        return employeeAuditService.getChanges(id, from == null ? Instant.EPOCH : from,
+                to == null ? Instant.now() : to, afterId, size);
+    }
+
+    @GetMapping("/employees/history")
+    public List<EmployeeHistoryEntry> getHistory(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final Instant from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final Instant to,
+            @RequestParam(name = "afterId", defaultValue = "0") final long afterId,
+            @RequestParam(name = "size", defaultValue = "100") final int size) {
+        return employeeAuditService.getChanges(null, from == null ? Instant.EPOCH : from,
+                to == null ? Instant.now() : to, afterId, size);
+    }
+
+    /**
+     * Etat de l'employé à l'instant {@code at} : {@code GET /employee/42?at=2024-03-01T12:00:00Z}.
+     */
+    @GetMapping(value = "/employee/{id}", params = "at")
+    public ResponseEntity<?> getEmployeeAt(
+            @PathVariable("id") final Long id,
+            @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final Instant at) {
+        try {
+            return ResponseEntity.of(employeeAuditService.getEmployeeAt(id, at));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(List.of(e.getMessage()));
+        }
+    }
+}
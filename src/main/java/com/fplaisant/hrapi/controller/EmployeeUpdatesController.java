@@ -0,0 +1,27 @@
+package com.fplaisant.hrapi.controller;
+
+import com.fplaisant.hrapi.model.EmployeeUpdates;
+import com.fplaisant.hrapi.service.EmployeeUpdatesBridge;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Reprise après reconnexion : le client s'abonne à {@code /app/employees/resume/{version}} et
+ * reçoit en réponse les événements manqués depuis cette version, avant de se réabonner à
+ * {@code /topic/employees}.
+ */
+@Controller
+public class EmployeeUpdatesController {
+
+    private final EmployeeUpdatesBridge employeeUpdatesBridge;
+
+    public EmployeeUpdatesController(EmployeeUpdatesBridge employeeUpdatesBridge) {
+        this.employeeUpdatesBridge = employeeUpdatesBridge;
+    }
+
+    @SubscribeMapping("/employees/resume/{version}")
+    public EmployeeUpdates resume(@DestinationVariable("version") final long version) {
+        return employeeUpdatesBridge.eventsSince(version);
+    }
+}
@@ -1,22 +1,32 @@
 package com.fplaisant.hrapi.controller;
 
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 
+import com.fplaisant.configuration.TokenRevocationStore;
 import com.fplaisant.hrapi.service.JWTService;
 
+import java.util.List;
+
 
 @RestController
 public class LoginController {
 
 
     private JWTService jwtService;
+    private final TokenRevocationStore tokenRevocationStore;
 
-    public LoginController(JWTService jwtService) {
+    public LoginController(JWTService jwtService, TokenRevocationStore tokenRevocationStore) {
         this.jwtService = jwtService;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
     @PostMapping("/token")
@@ -25,4 +35,29 @@ public class LoginController {
         return token;
     }
 
-}
\ No newline at end of file
+    /**
+     * Révoque le jeton utilisé pour la requête (déconnexion).
+     */
+    @DeleteMapping("/token")
+    public ResponseEntity<?> revokeToken(@AuthenticationPrincipal Jwt jwt) {
+        if (jwt == null) {
+            return ResponseEntity.badRequest().body(List.of("Requête non authentifiée par un jeton"));
+        }
+        try {
+            tokenRevocationStore.revokeToken(jwt);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(List.of(e.getMessage()));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Révoque tous les jetons déjà émis pour un utilisateur (réservé à ROLE_ADMIN).
+     */
+    @DeleteMapping("/users/{username}/tokens")
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable("username") final String username) {
+        tokenRevocationStore.revokeUser(username);
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.fplaisant.hrapi.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mapping sélectionné seulement quand l'en-tête {@code Prefer} contient la préférence
+ * {@code respond-async} (RFC 7240), quels que soient les autres préférences et paramètres
+ * ({@code Prefer: return=minimal, respond-async, wait=5}).
+ *
+ * @see com.fplaisant.hrapi.config.PreferRespondAsyncCondition
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RespondAsync {
+}
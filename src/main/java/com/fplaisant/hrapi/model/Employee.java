@@ -1,13 +1,16 @@
 package com.fplaisant.hrapi.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Data
 @Entity
+@DynamicUpdate // UPDATE limité aux colonnes modifiées
 @Table(name = "employees")
 public class Employee {
 
@@ -26,8 +29,15 @@ public class Employee {
     @Email(message = "Email invalide")
     private String mail;
 
+    // Hash du mot de passe : accepté en entrée, jamais renvoyé
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @NotBlank(message = "Le mot de passe ne doit pas être vide")
     @Size(min = 8, message = "Le mot de passe doit contenir au moins 8 caractères")
     private String password;
 
+    // Incrémentée à chaque modification, sert d'ETag de l'employé
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
 }
@@ -0,0 +1,95 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evénement de modification d'un employé, publié une fois par écriture.
+ *
+ * Protocole snapshot + log pour reconstruire l'état côté consommateur :
+ * - lire {@code GET /employees} en {@code application/x-ndjson} et noter l'en-tête
+ *   {@code X-Employees-Version} (V) renvoyé avec le snapshot ;
+ * - appliquer ensuite, dans l'ordre des versions, les événements de version > V.
+ * Les versions sont attribuées dans la transaction d'écriture et sont strictement croissantes.
+ * {@code changes} ne contient que les champs modifiés ; le mot de passe n'est jamais publié
+ * (un changement de mot de passe seul publie un UPDATED sans champ).
+ * {@code employeeVersion} est la version JPA de l'employé après l'écriture, null si elle n'est pas connue.
+ * Un import en masse publie un événement IMPORTED sans id par lot inséré, dans la transaction
+ * du lot : {@code changes.employees} contient les employés créés, tels qu'insérés (id, nom,
+ * prénom, mail, version JPA).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeEvent {
+
+    public enum Op { CREATED, UPDATED, DELETED, IMPORTED }
+
+    private Op op;
+    private Long id;
+    private Map<String, Object> changes;
+    private long version;
+    private long timestamp;
+    private Long employeeVersion;
+
+    public static EmployeeEvent created(Employee employee, long version) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("firstName", employee.getFirstName());
+        changes.put("lastName", employee.getLastName());
+        changes.put("mail", employee.getMail());
+        return new EmployeeEvent(Op.CREATED, employee.getId(), changes, version, System.currentTimeMillis(),
+                employee.getVersion());
+    }
+
+    public static EmployeeEvent updated(Long id, Map<String, Object> changes, long version) {
+        return updated(id, changes, version, null);
+    }
+
+    public static EmployeeEvent updated(Long id, Map<String, Object> changes, long version, Long employeeVersion) {
+        return new EmployeeEvent(Op.UPDATED, id, changes, version, System.currentTimeMillis(), employeeVersion);
+    }
+
+    public static EmployeeEvent imported(List<Employee> employees, long version) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("employees", employees.stream().map(EmployeeEvent::importedFields).toList());
+        return new EmployeeEvent(Op.IMPORTED, null, changes, version, System.currentTimeMillis(), null);
+    }
+
+    /**
+     * Employés d'un événement IMPORTED, quels que soient les types produits par la désérialisation.
+     */
+    public List<Employee> importedEmployees() {
+        return ((List<?>) changes.get("employees")).stream().map(value -> {
+            Map<?, ?> fields = (Map<?, ?>) value;
+            Employee employee = new Employee();
+            employee.setId(((Number) fields.get("id")).longValue());
+            employee.setFirstName((String) fields.get("firstName"));
+            employee.setLastName((String) fields.get("lastName"));
+            employee.setMail((String) fields.get("mail"));
+            employee.setVersion(((Number) fields.get("version")).longValue());
+            return employee;
+        }).toList();
+    }
+
+    /**
+     * Champs publiés d'un employé importé, jamais le mot de passe.
+     */
+    public static Map<String, Object> importedFields(Employee employee) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", employee.getId());
+        fields.put("firstName", employee.getFirstName());
+        fields.put("lastName", employee.getLastName());
+        fields.put("mail", employee.getMail());
+        fields.put("version", employee.getVersion());
+        return fields;
+    }
+
+    public static EmployeeEvent deleted(Long id, long version) {
+        return new EmployeeEvent(Op.DELETED, id, Map.of(), version, System.currentTimeMillis(), null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.fplaisant.hrapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Modification d'un employé enregistrée dans l'historique : qui, quand, quels champs.
+ * Une ligne par employé, y compris pour un import en masse (op IMPORTED, tous les champs).
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EmployeeHistoryEntry {
+
+    private long id;
+    private long eventVersion;
+    private long employeeId;
+    private EmployeeEvent.Op op;
+    private Map<String, Object> changes;
+    private Long employeeVersion;
+    private String actor;
+    private String traceId;
+    private Instant changedAt;
+
+}
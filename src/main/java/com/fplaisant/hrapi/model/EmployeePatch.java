@@ -0,0 +1,23 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Modification partielle d'un employé (JSON Merge Patch) : seuls les champs présents dans
+ * {@code changes} sont écrits. Si {@code version} est renseignée, la modification n'est
+ * appliquée que si l'employé est toujours à cette version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeePatch {
+
+    private Long id;
+    private Long version;
+    private Map<String, Object> changes;
+
+}
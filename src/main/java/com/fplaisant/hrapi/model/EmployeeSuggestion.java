@@ -0,0 +1,23 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat d'autocomplétion : les champs affichables d'un employé, sans mot de passe.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeSuggestion {
+
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String mail;
+
+    public static EmployeeSuggestion of(Employee employee) {
+        return new EmployeeSuggestion(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getMail());
+    }
+}
@@ -0,0 +1,22 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lot d'événements poussé aux clients WebSocket. {@code resync} indique que des événements
+ * ont été perdus pour ce client : il doit recharger le snapshot puis reprendre à {@code version}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeUpdates {
+
+    private boolean resync;
+    private long version;
+    private List<EmployeeEvent> events;
+
+}
@@ -0,0 +1,19 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'un import en masse : nombre de lignes insérées, rejetées et détail des erreurs
+ * (limité à {@code hrapi.import.max-reported-errors} messages).
+ */
+@Data
+public class ImportReport {
+
+    private long imported;
+    private long rejected;
+    private List<String> errors = new ArrayList<>();
+
+}
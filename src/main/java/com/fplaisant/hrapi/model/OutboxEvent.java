@@ -0,0 +1,39 @@
+package com.fplaisant.hrapi.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Evénement en attente de publication Kafka, écrit dans la même transaction que la
+ * modification de l'employé puis supprimé par le relais une fois acquitté par le broker.
+ */
+@Data
+@Entity
+@Table(name = "employee_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    // CLOB sous H2, text sous PostgreSQL : lu et écrit comme une chaîne (@Lob serait un oid sous PostgreSQL)
+    private String payload;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // Trace de la requête d'origine, transmise en en-tête Kafka par le relais
+    @Column(name = "trace_id")
+    private String traceId;
+
+    // Utilisateur à l'origine de la modification, repris dans l'historique
+    private String actor;
+
+}
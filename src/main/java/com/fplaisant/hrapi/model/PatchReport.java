@@ -0,0 +1,18 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatchReport {
+
+    private int patched;
+    private List<Long> missing = new ArrayList<>();
+
+}
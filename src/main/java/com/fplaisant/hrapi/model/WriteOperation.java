@@ -0,0 +1,29 @@
+package com.fplaisant.hrapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ecriture acceptée en mode asynchrone, telle qu'inscrite dans le journal : l'id est attribué à
+ * l'ajout et donne l'ordre d'application. Le mot de passe de {@code employee} est chiffré dans le
+ * journal, puis remplacé par son hash avant l'application.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WriteOperation {
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    private long id;
+    private Type type;
+    // Null pour une création
+    private Long employeeId;
+    // Null pour une suppression
+    private Employee employee;
+    private long timestamp;
+    // Utilisateur à l'origine de l'écriture, repris dans l'historique
+    private String actor;
+
+}
@@ -0,0 +1,31 @@
+package com.fplaisant.hrapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Etat d'une écriture asynchrone, renvoyé par {@code GET /operations/{id}}.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WriteOperationStatus {
+
+    public enum Status { PENDING, APPLIED, FAILED }
+
+    private long id;
+    private Status status;
+    // Employé créé, modifié ou supprimé
+    private Long employeeId;
+    private String error;
+    private Instant completedAt;
+
+    public static WriteOperationStatus pending(long id) {
+        WriteOperationStatus status = new WriteOperationStatus();
+        status.setId(id);
+        status.setStatus(Status.PENDING);
+        return status;
+    }
+
+}
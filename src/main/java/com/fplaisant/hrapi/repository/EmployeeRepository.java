@@ -1,10 +1,92 @@
 package com.fplaisant.hrapi.repository;
 
 import com.fplaisant.hrapi.model.Employee;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface EmployeeRepository extends CrudRepository<Employee, Long> {
+public interface EmployeeRepository extends CrudRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
+
+    /**
+     * Keyset pagination : renvoie au plus {@code limit} employés dont l'id est strictement
+     * supérieur à {@code id}, triés par id. Le coût ne dépend pas de la position dans la table.
+     */
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Suggestions par préfixe, dans l'ordre des index de data.sql : la base s'arrête
+     * après {@code limit} lignes sans trier tous les résultats (StartingWith échappe % et _).
+     */
+    List<Employee> findByLastNameStartingWithOrderByLastNameAscFirstNameAsc(String prefix, Limit limit);
+
+    List<Employee> findByFirstNameStartingWithOrderByFirstNameAsc(String prefix, Limit limit);
+
+    List<Employee> findByMailStartingWithOrderByMailAsc(String prefix, Limit limit);
+
+    /**
+     * Suggestions sur PostgreSQL : {@code lower(col) LIKE 'abc%'} utilise les index
+     * {@code text_pattern_ops} de la migration V4. Le motif est déjà en minuscules et échappé.
+     */
+    @Query("select e from Employee e where lower(e.lastName) like :pattern escape '\\' order by e.lastName, e.firstName")
+    List<Employee> findByLowerLastNameLike(@Param("pattern") String pattern, Limit limit);
+
+    @Query("select e from Employee e where lower(e.firstName) like :pattern escape '\\' order by e.firstName")
+    List<Employee> findByLowerFirstNameLike(@Param("pattern") String pattern, Limit limit);
+
+    @Query("select e from Employee e where lower(e.mail) like :pattern escape '\\' order by e.mail")
+    List<Employee> findByLowerMailLike(@Param("pattern") String pattern, Limit limit);
+
+    /**
+     * Parcourt toute la table via un curseur JDBC. Doit être consommé dans une transaction
+     * et fermé après usage.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from Employee e order by e.id")
+    Stream<Employee> streamAll();
+
+    /**
+     * Incrémente la version globale des employés. Le verrou posé sur la ligne est conservé
+     * jusqu'au commit : l'ordre des versions suit donc l'ordre des commits.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE employee_version SET version = version + 1", nativeQuery = true)
+    void incrementVersion();
+
+    /**
+     * Réserve {@code count} versions consécutives en une seule requête (mises à jour en masse).
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE employee_version SET version = version + :count", nativeQuery = true)
+    void incrementVersionBy(@Param("count") long count);
+
+    List<Employee> findByPasswordStartingWith(String prefix);
+
+    /**
+     * Remplace un mot de passe s'il n'a pas changé entre-temps, sans incrémenter la version de
+     * l'employé (le mot de passe n'est ni publié ni exposé).
+     */
+    @Modifying
+    @Query("update Employee e set e.password = :password where e.id = :id and e.password = :previous")
+    int replacePassword(@Param("id") Long id, @Param("previous") String previous, @Param("password") String password);
+
+    @Query(value = "SELECT version FROM employee_version", nativeQuery = true)
+    Long currentVersion();
 
 }
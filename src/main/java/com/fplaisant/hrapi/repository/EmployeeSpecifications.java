@@ -0,0 +1,66 @@
+package com.fplaisant.hrapi.repository;
+
+import com.fplaisant.hrapi.model.Employee;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+/**
+ * Filtres de recherche sur les employés. Les préfixes sont traduits en {@code LIKE 'abc%'},
+ * qui peut utiliser les index de data.sql (contrairement à {@code LIKE '%abc%'}). Avec
+ * {@code lowerCase}, ils deviennent {@code lower(col) LIKE 'abc%'}, servi sur PostgreSQL par les
+ * index {@code text_pattern_ops} de la migration V4.
+ */
+public final class EmployeeSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private EmployeeSpecifications() {
+    }
+
+    public static Specification<Employee> firstNameStartsWith(String prefix, boolean lowerCase) {
+        return startsWith("firstName", prefix, lowerCase);
+    }
+
+    public static Specification<Employee> lastNameStartsWith(String prefix, boolean lowerCase) {
+        return startsWith("lastName", prefix, lowerCase);
+    }
+
+    public static Specification<Employee> mailStartsWith(String prefix, boolean lowerCase) {
+        return startsWith("mail", prefix, lowerCase);
+    }
+
+    public static Specification<Employee> mailEquals(String mail) {
+        return (root, query, cb) -> mail == null || mail.isEmpty() ? null : cb.equal(root.get("mail"), mail);
+    }
+
+    private static Specification<Employee> startsWith(String attribute, String prefix, boolean lowerCase) {
+        return (root, query, cb) -> {
+            if (prefix == null || prefix.isEmpty()) {
+                return null;
+            }
+            return lowerCase
+                    ? cb.like(cb.lower(root.get(attribute)), lowerPrefixPattern(prefix), ESCAPE)
+                    : cb.like(root.get(attribute), escapeLike(prefix) + "%", ESCAPE);
+        };
+    }
+
+    /**
+     * Motif {@code LIKE} d'un préfixe comparé à {@code lower(col)}.
+     */
+    public static String lowerPrefixPattern(String prefix) {
+        return escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.fplaisant.hrapi.repository;
+
+import com.fplaisant.hrapi.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends CrudRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByOrderByIdAsc(Limit limit);
+
+    /**
+     * Verrou du relais, tenu jusqu'à la fin de la transaction appelante : vide si le relais
+     * d'un autre nœud le détient déjà.
+     */
+    @Query(value = "SELECT id FROM outbox_relay_lock WHERE id = 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Integer> tryLockRelay();
+
+    /**
+     * Copie un événement impossible à publier dans {@code employee_outbox_dead_letter}, avec la cause.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO employee_outbox_dead_letter "
+            + "(id, topic, message_key, payload, created_at, trace_id, actor, error, failed_at) "
+            + "SELECT id, topic, message_key, payload, created_at, trace_id, actor, :error, :failedAt "
+            + "FROM employee_outbox WHERE id = :id", nativeQuery = true)
+    void copyToDeadLetter(@Param("id") long id, @Param("error") String error, @Param("failedAt") Instant failedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent o where o.id in :ids")
+    void deleteByIds(@Param("ids") List<Long> ids);
+
+}
@@ -0,0 +1,399 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.WriteOperation;
+import com.fplaisant.hrapi.model.WriteOperationStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ecritures asynchrones : l'opération validée est inscrite dans le {@link WriteAheadLog} et
+ * acceptée aussitôt, sans Kafka, JDBC ni bcrypt sur le thread de la requête. Le mot de passe est
+ * inscrit chiffré ({@link PasswordCipher}, clé {@code hrapi.async-writes.encryption-key}) ; il est
+ * déchiffré et haché à l'application, sur un pool de {@code hrapi.async-writes.hash-threads}
+ * threads et avant la transaction du lot, pour ne pas garder de verrou pendant bcrypt.
+ *
+ * Un seul écrivain (la tâche planifiée) applique le journal dans l'ordre des ids, donc dans
+ * l'ordre d'arrivée pour chaque employé, par lots d'au plus {@code hrapi.async-writes.batch-size}
+ * opérations dans une transaction. Dans un lot, les modifications successives d'un même employé
+ * sont fusionnées en un seul UPDATE et un seul événement. Le résultat de chaque opération est
+ * inséré dans {@code write_operation} par la même transaction : le plus grand id est le point de
+ * reprise du journal, une opération n'est jamais appliquée deux fois. Le journal et cette table
+ * doivent donc survivre ensemble aux redémarrages.
+ *
+ * Si un lot échoue, ses opérations sont rejouées une par une pour isoler celle qui échoue.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "hrapi.async-writes.enabled", havingValue = "true")
+public class AsyncWriteService {
+
+    private static final String INSERT_STATUS_SQL =
+            "INSERT INTO write_operation (id, status, employee_id, error, completed_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_STATUS_SQL =
+            "SELECT id, status, employee_id, error, completed_at FROM write_operation WHERE id = ?";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final RowMapper<WriteOperationStatus> STATUS_MAPPER = (rs, rowNum) -> {
+        WriteOperationStatus status = new WriteOperationStatus();
+        status.setId(rs.getLong("id"));
+        status.setStatus(WriteOperationStatus.Status.valueOf(rs.getString("status")));
+        long employeeId = rs.getLong("employee_id");
+        status.setEmployeeId(rs.wasNull() ? null : employeeId);
+        status.setError(rs.getString("error"));
+        status.setCompletedAt(rs.getTimestamp("completed_at").toInstant());
+        return status;
+    };
+
+    private final EmployeeService employeeService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteAheadLog writeAheadLog;
+    private final int batchSize;
+    private final Duration statusRetention;
+    private final Timer batchTimer;
+    private final Counter failureCounter;
+    private final PasswordCipher passwordCipher;
+    private final ThreadPoolTaskExecutor hashExecutor;
+    // Opérations dont le mot de passe n'a pas pu être déchiffré, en échec à l'application
+    private final Map<Long, String> unreadablePasswords = new ConcurrentHashMap<>();
+
+    // Lot lu mais pas encore appliqué : rejoué au passage suivant si la base est indisponible
+    private List<WriteOperation> pending = List.of();
+    // Vrai quand les mots de passe de pending sont déjà hachés
+    private boolean pendingEncoded;
+    private volatile long appliedId;
+
+    public AsyncWriteService(EmployeeService employeeService,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${hrapi.async-writes.directory:./data/hrapi-wal}") String directory,
+                             @Value("${hrapi.async-writes.segment-size:64MB}") DataSize segmentSize,
+                             @Value("${hrapi.async-writes.force:false}") boolean force,
+                             @Value("${hrapi.async-writes.batch-size:500}") int batchSize,
+                             @Value("${hrapi.async-writes.status-retention:24h}") Duration statusRetention,
+                             @Value("${hrapi.async-writes.encryption-key:}") String encryptionKey,
+                             @Value("${hrapi.async-writes.hash-threads:2}") int hashThreads)
+            throws IOException {
+        this.employeeService = employeeService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.statusRetention = statusRetention;
+        if (encryptionKey.isBlank()) {
+            log.warn("hrapi.async-writes.encryption-key absente : clé aléatoire, les mots de passe encore dans "
+                    + "le journal au prochain démarrage ne pourront pas être appliqués");
+            this.passwordCipher = PasswordCipher.withRandomKey();
+        } else {
+            this.passwordCipher = new PasswordCipher(Base64.getDecoder().decode(encryptionKey));
+        }
+        this.hashExecutor = new ThreadPoolTaskExecutor();
+        hashExecutor.setCorePoolSize(hashThreads);
+        hashExecutor.setMaxPoolSize(hashThreads);
+        hashExecutor.setThreadNamePrefix("async-write-hash-");
+        hashExecutor.initialize();
+        this.appliedId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM write_operation", Long.class);
+        this.writeAheadLog = WriteAheadLog.open(Path.of(directory),
+                (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes()), force, appliedId);
+        this.batchTimer = Timer.builder("hrapi.async-writes.batch").register(meterRegistry);
+        this.failureCounter = Counter.builder("hrapi.async-writes.failures").register(meterRegistry);
+        Gauge.builder("hrapi.async-writes.backlog", this, service -> service.writeAheadLog.lastId() - service.appliedId)
+                .description("Operations accepted but not yet applied")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    /**
+     * Inscrit l'opération dans le journal, mot de passe chiffré : le journal ne contient jamais
+     * de mot de passe en clair, et la requête ne paie ni bcrypt ni lecture en base.
+     */
+    public WriteOperationStatus submit(WriteOperation.Type type, Long employeeId, Employee employee) {
+        Employee logged = null;
+        if (employee != null) {
+            logged = copy(employee);
+            if (employee.getPassword() != null) {
+                logged.setPassword(passwordCipher.encrypt(employee.getPassword()));
+            }
+        }
+        try {
+            long id = writeAheadLog.append(new WriteOperation(0, type, employeeId, logged, System.currentTimeMillis(),
+                    currentActor()));
+            return WriteOperationStatus.pending(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<WriteOperationStatus> getStatus(long id) {
+        // Lu avant la ligne : une opération appliquée entre les deux lectures reste vue en attente
+        long applied = appliedId;
+        List<WriteOperationStatus> statuses = jdbcTemplate.query(SELECT_STATUS_SQL, STATUS_MAPPER, id);
+        if (!statuses.isEmpty()) {
+            return Optional.of(statuses.get(0));
+        }
+        if (id > applied && id <= writeAheadLog.lastId()) {
+            return Optional.of(WriteOperationStatus.pending(id));
+        }
+        return Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${hrapi.async-writes.linger-ms:10}")
+    public void applyPending() {
+        while (true) {
+            if (pending.isEmpty()) {
+                pending = writeAheadLog.poll(batchSize);
+                pendingEncoded = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+            try {
+                if (!pendingEncoded) {
+                    pending = encodePasswords(pending);
+                    pendingEncoded = true;
+                }
+                batchTimer.record(this::applyBatch);
+                writeAheadLog.release(appliedId);
+            } catch (IOException | RuntimeException e) {
+                failureCounter.increment();
+                log.warn("Application des écritures asynchrones interrompue après l'opération {}, nouvel essai au prochain passage",
+                        appliedId, e);
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hrapi.async-writes.purge-ms:600000}")
+    public void purgeStatuses() {
+        // La dernière opération appliquée est gardée : c'est le point de reprise du journal
+        jdbcTemplate.update("DELETE FROM write_operation WHERE completed_at < ? AND id < ?",
+                Timestamp.from(Instant.now().minus(statusRetention)), appliedId);
+    }
+
+    private void applyBatch() {
+        List<WriteOperation> batch = pending;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                for (List<WriteOperation> group : coalesce(batch)) {
+                    apply(group, rows);
+                }
+                jdbcTemplate.batchUpdate(INSERT_STATUS_SQL, rows);
+            });
+            completed(batch.size());
+        } catch (RuntimeException e) {
+            log.debug("Lot d'écritures asynchrones en échec, application opération par opération", e);
+            while (!pending.isEmpty()) {
+                WriteOperation operation = pending.get(0);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        List<Object[]> rows = new ArrayList<>(1);
+                        apply(List.of(operation), rows);
+                        jdbcTemplate.batchUpdate(INSERT_STATUS_SQL, rows);
+                    });
+                } catch (RuntimeException operationError) {
+                    // Si la base est indisponible, cette insertion échoue aussi et le lot reprend ici
+                    jdbcTemplate.update(INSERT_STATUS_SQL, statusRow(operation, WriteOperationStatus.Status.FAILED,
+                            operation.getEmployeeId(), errorMessage(operationError)));
+                    unreadablePasswords.remove(operation.getId());
+                }
+                completed(1);
+            }
+        }
+    }
+
+    private void completed(int count) {
+        appliedId = pending.get(count - 1).getId();
+        pending = pending.subList(count, pending.size());
+    }
+
+    /**
+     * Applique un groupe d'opérations sur le même employé ({@link #coalesce(List)}) et ajoute
+     * une ligne de résultat par opération. L'auteur des opérations est placé dans le contexte de
+     * sécurité pour que l'outbox l'enregistre comme pour une écriture synchrone.
+     */
+    private void apply(List<WriteOperation> group, List<Object[]> rows) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        String actor = group.get(0).getActor();
+        if (actor != null) {
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(actor, null, List.of()));
+        }
+        SecurityContextHolder.setContext(context);
+        try {
+            applyAs(group, rows);
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    private void applyAs(List<WriteOperation> group, List<Object[]> rows) {
+        for (WriteOperation operation : group) {
+            String unreadable = unreadablePasswords.get(operation.getId());
+            if (unreadable != null) {
+                throw new IllegalStateException(unreadable);
+            }
+        }
+        WriteOperation first = group.get(0);
+        Long employeeId = first.getEmployeeId();
+        String error = null;
+        switch (first.getType()) {
+            case CREATE -> employeeId = employeeService.createEncodedEmployee(first.getEmployee()).getId();
+            case UPDATE -> {
+                if (employeeService.updateEncodedEmployee(employeeId, merge(group)).isEmpty()) {
+                    error = "Employé introuvable";
+                }
+            }
+            case DELETE -> employeeService.removeEmployee(employeeId);
+        }
+        WriteOperationStatus.Status status = error == null
+                ? WriteOperationStatus.Status.APPLIED : WriteOperationStatus.Status.FAILED;
+        for (WriteOperation operation : group) {
+            rows.add(statusRow(operation, status, employeeId, error));
+        }
+    }
+
+    /**
+     * Remplace les mots de passe chiffrés du lot par leur hash, en parallèle sur le pool dédié.
+     * Comme pour l'écriture synchrone, une modification dont le mot de passe est déjà celui de
+     * l'employé ne le réencode pas (nouveau hash, nouvelle version et événement sans changement réel).
+     */
+    private List<WriteOperation> encodePasswords(List<WriteOperation> operations) {
+        List<CompletableFuture<WriteOperation>> encoded = operations.stream()
+                .map(operation -> operation.getEmployee() == null || operation.getEmployee().getPassword() == null
+                        ? CompletableFuture.completedFuture(operation)
+                        : CompletableFuture.supplyAsync(() -> encodePassword(operation), hashExecutor))
+                .toList();
+        return encoded.stream().map(CompletableFuture::join).toList();
+    }
+
+    private WriteOperation encodePassword(WriteOperation operation) {
+        Employee employee = copy(operation.getEmployee());
+        try {
+            String password = passwordCipher.decrypt(operation.getEmployee().getPassword());
+            boolean unchanged = operation.getType() == WriteOperation.Type.UPDATE
+                    && employeeService.passwordMatches(operation.getEmployeeId(), password);
+            employee.setPassword(unchanged ? null : employeeService.hashPassword(password));
+        } catch (IllegalStateException e) {
+            unreadablePasswords.put(operation.getId(), e.getMessage());
+        }
+        return new WriteOperation(operation.getId(), operation.getType(), operation.getEmployeeId(), employee,
+                operation.getTimestamp(), operation.getActor());
+    }
+
+    // Copie sans le mot de passe
+    private static Employee copy(Employee employee) {
+        Employee copy = new Employee();
+        copy.setFirstName(employee.getFirstName());
+        copy.setLastName(employee.getLastName());
+        copy.setMail(employee.getMail());
+        return copy;
+    }
+
+    /**
+     * Découpe un lot en groupes appliqués dans l'ordre du premier élément de chaque groupe. Les
+     * modifications d'un employé par un même auteur sont regroupées jusqu'à sa suppression ou la
+     * modification d'un autre auteur : les autres opérations intercalées portent sur d'autres
+     * employés (une création n'a pas encore d'id), l'état final est donc le même que dans l'ordre
+     * du journal.
+     */
+    static List<List<WriteOperation>> coalesce(List<WriteOperation> operations) {
+        List<List<WriteOperation>> groups = new ArrayList<>();
+        Map<Long, List<WriteOperation>> openUpdates = new HashMap<>();
+        for (WriteOperation operation : operations) {
+            if (operation.getType() == WriteOperation.Type.UPDATE) {
+                List<WriteOperation> group = openUpdates.get(operation.getEmployeeId());
+                if (group == null || !Objects.equals(group.get(0).getActor(), operation.getActor())) {
+                    group = new ArrayList<>();
+                    groups.add(group);
+                    openUpdates.put(operation.getEmployeeId(), group);
+                }
+                group.add(operation);
+            } else {
+                if (operation.getType() == WriteOperation.Type.DELETE) {
+                    openUpdates.remove(operation.getEmployeeId());
+                }
+                groups.add(List.of(operation));
+            }
+        }
+        return groups;
+    }
+
+    // Champs non nuls de chaque modification, la plus récente l'emporte
+    static Employee merge(List<WriteOperation> updates) {
+        Employee merged = new Employee();
+        for (WriteOperation update : updates) {
+            Employee employee = update.getEmployee();
+            if (employee.getFirstName() != null) {
+                merged.setFirstName(employee.getFirstName());
+            }
+            if (employee.getLastName() != null) {
+                merged.setLastName(employee.getLastName());
+            }
+            if (employee.getMail() != null) {
+                merged.setMail(employee.getMail());
+            }
+            if (employee.getPassword() != null) {
+                merged.setPassword(employee.getPassword());
+            }
+        }
+        return merged;
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    private static Object[] statusRow(WriteOperation operation, WriteOperationStatus.Status status,
+                                      Long employeeId, String error) {
+        return new Object[]{operation.getId(), status.name(), employeeId, error, Timestamp.from(Instant.now())};
+    }
+
+    private static String errorMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        String message = cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,341 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.EmployeeHistoryEntry;
+import com.fplaisant.hrapi.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Historique des modifications des employés, en ajout seul dans {@code employee_history}.
+ *
+ * Alimenté par {@link OutboxRelay} à partir des événements acquittés, dans la transaction qui
+ * les supprime de l'outbox : rien n'est ajouté au chemin d'écriture, et chaque événement est
+ * enregistré exactement une fois. Un import en masse est détaillé employé par employé, d'après
+ * les lignes insérées que porte l'événement.
+ *
+ * Dès qu'un employé a {@code hrapi.audit.snapshot-threshold} modifications depuis son dernier
+ * snapshot, son état complet est enregistré dans {@code employee_snapshot} : l'état à un instant
+ * donné se calcule en rejouant au plus ce nombre de lignes, quelle que soit la taille de
+ * l'historique. Avec {@code hrapi.audit.retention}, les lignes plus anciennes couvertes par un
+ * snapshot sont supprimées.
+ */
+@Slf4j
+@Service
+public class EmployeeAuditService {
+
+    private static final String INSERT_HISTORY_SQL = "INSERT INTO employee_history "
+            + "(event_version, employee_id, op, changes, employee_version, actor, trace_id, changed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SNAPSHOT_SQL = "INSERT INTO employee_snapshot "
+            + "(employee_id, event_version, changed_at, deleted, first_name, last_name, mail, employee_version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String HISTORY_COLUMNS =
+            "id, event_version, employee_id, op, changes, employee_version, actor, trace_id, changed_at";
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final TypeReference<Map<String, Object>> CHANGES_TYPE = new TypeReference<>() { };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int snapshotThreshold;
+    private final Duration retention;
+
+    private final RowMapper<EmployeeHistoryEntry> entryMapper = (rs, rowNum) -> {
+        EmployeeHistoryEntry entry = new EmployeeHistoryEntry();
+        entry.setId(rs.getLong("id"));
+        entry.setEventVersion(rs.getLong("event_version"));
+        entry.setEmployeeId(rs.getLong("employee_id"));
+        entry.setOp(EmployeeEvent.Op.valueOf(rs.getString("op")));
+        entry.setChanges(readChanges(rs.getString("changes")));
+        entry.setEmployeeVersion(getLong(rs, "employee_version"));
+        entry.setActor(rs.getString("actor"));
+        entry.setTraceId(rs.getString("trace_id"));
+        entry.setChangedAt(rs.getTimestamp("changed_at").toInstant());
+        return entry;
+    };
+
+    public EmployeeAuditService(JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${hrapi.audit.enabled:true}") boolean enabled,
+                                @Value("${hrapi.audit.snapshot-threshold:100}") int snapshotThreshold,
+                                @Value("${hrapi.audit.retention:0d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.snapshotThreshold = snapshotThreshold;
+        this.retention = retention;
+    }
+
+    /**
+     * Enregistre les événements publiés. Doit être appelée dans la transaction qui les supprime
+     * de l'outbox.
+     */
+    public void record(List<OutboxEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        Set<Long> modified = new LinkedHashSet<>();
+        List<OutboxEvent> imports = new ArrayList<>();
+        List<EmployeeEvent> importEvents = new ArrayList<>();
+        for (OutboxEvent outboxEvent : events) {
+            EmployeeEvent event;
+            try {
+                event = objectMapper.readValue(outboxEvent.getPayload(), EmployeeEvent.class);
+            } catch (IOException e) {
+                log.warn("Evénement {} illisible, absent de l'historique", outboxEvent.getId(), e);
+                continue;
+            }
+            if (event.getOp() == EmployeeEvent.Op.IMPORTED) {
+                imports.add(outboxEvent);
+                importEvents.add(event);
+            } else if (event.getOp() != null && event.getId() != null) {
+                rows.add(new Object[]{event.getVersion(), event.getId(), event.getOp().name(),
+                        writeChanges(event.getChanges()), event.getEmployeeVersion(), outboxEvent.getActor(),
+                        outboxEvent.getTraceId(), new Timestamp(event.getTimestamp())});
+                modified.add(event.getId());
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, rows);
+        }
+        for (int i = 0; i < imports.size(); i++) {
+            recordImport(importEvents.get(i), imports.get(i));
+        }
+        snapshotIfDue(modified);
+    }
+
+    /**
+     * Etat de l'employé à l'instant {@code at}, vide s'il n'existait pas (ou pas encore dans
+     * l'historique, pour les employés antérieurs à sa mise en place).
+     */
+    @Transactional(readOnly = true)
+    public Optional<Employee> getEmployeeAt(long employeeId, Instant at) {
+        if (!retention.isZero() && at.isBefore(Instant.now().minus(retention))) {
+            throw new IllegalArgumentException("Historique conservé " + retention.toDays() + " jours");
+        }
+        State state = replay(employeeId, Timestamp.from(at));
+        if (!state.known || state.deleted) {
+            return Optional.empty();
+        }
+        Employee employee = new Employee();
+        employee.setId(employeeId);
+        employee.setFirstName(state.firstName);
+        employee.setLastName(state.lastName);
+        employee.setMail(state.mail);
+        employee.setVersion(state.employeeVersion == null ? 0 : state.employeeVersion);
+        return Optional.of(employee);
+    }
+
+    /**
+     * Modifications de {@code from} (inclus) à {@code to} (exclu), d'un employé ou de tous si
+     * {@code employeeId} est null, par pages d'id croissant.
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeeHistoryEntry> getChanges(Long employeeId, Instant from, Instant to, long afterId, int size) {
+        List<Object> args = new ArrayList<>(5);
+        StringBuilder sql = new StringBuilder("SELECT ").append(HISTORY_COLUMNS).append(" FROM employee_history WHERE ");
+        if (employeeId != null) {
+            sql.append("employee_id = ? AND ");
+            args.add(employeeId);
+        }
+        sql.append("changed_at >= ? AND changed_at < ? AND id > ? ORDER BY id FETCH FIRST ? ROWS ONLY");
+        args.add(Timestamp.from(from));
+        args.add(Timestamp.from(to));
+        args.add(afterId);
+        args.add(Math.min(size, MAX_PAGE_SIZE));
+        return jdbcTemplate.query(sql.toString(), entryMapper, args.toArray());
+    }
+
+    /**
+     * Supprime l'historique antérieur à {@code hrapi.audit.retention} déjà couvert par un
+     * snapshot, puis les snapshots remplacés par un plus récent lui aussi antérieur.
+     */
+    @Scheduled(fixedDelayString = "${hrapi.audit.compaction-interval-ms:3600000}")
+    public void compact() {
+        if (!enabled || retention.isZero()) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int history = jdbcTemplate.update("DELETE FROM employee_history h WHERE h.changed_at < ? AND h.event_version <= "
+                + "(SELECT MAX(s.event_version) FROM employee_snapshot s WHERE s.employee_id = h.employee_id AND s.changed_at < ?)",
+                cutoff, cutoff);
+        int snapshots = jdbcTemplate.update("DELETE FROM employee_snapshot s WHERE s.changed_at < ? AND s.event_version < "
+                + "(SELECT MAX(t.event_version) FROM employee_snapshot t WHERE t.employee_id = s.employee_id AND t.changed_at < ?)",
+                cutoff, cutoff);
+        log.info("Compactage de l'historique : {} modifications et {} snapshots supprimés", history, snapshots);
+    }
+
+    // Une ligne par employé importé, par tranches de IMPORT_CHUNK_SIZE
+    private void recordImport(EmployeeEvent event, OutboxEvent outboxEvent) {
+        Timestamp changedAt = new Timestamp(event.getTimestamp());
+        List<Object[]> rows = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        for (Employee employee : event.importedEmployees()) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("firstName", employee.getFirstName());
+            fields.put("lastName", employee.getLastName());
+            fields.put("mail", employee.getMail());
+            rows.add(new Object[]{event.getVersion(), employee.getId(), EmployeeEvent.Op.IMPORTED.name(),
+                    writeChanges(fields), employee.getVersion(), outboxEvent.getActor(), outboxEvent.getTraceId(), changedAt});
+            if (rows.size() >= IMPORT_CHUNK_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, rows);
+        }
+    }
+
+    // Compte borné par le seuil grâce à l'index (employee_id, event_version)
+    private void snapshotIfDue(Set<Long> employeeIds) {
+        if (employeeIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(employeeIds);
+        args.add(snapshotThreshold);
+        List<Long> due = jdbcTemplate.queryForList("SELECT h.employee_id FROM employee_history h WHERE h.employee_id IN ("
+                + String.join(", ", Collections.nCopies(employeeIds.size(), "?")) + ") AND h.event_version > "
+                + "COALESCE((SELECT MAX(s.event_version) FROM employee_snapshot s WHERE s.employee_id = h.employee_id), 0) "
+                + "GROUP BY h.employee_id HAVING COUNT(*) >= ?", Long.class, args.toArray());
+        for (Long employeeId : due) {
+            State state = replay(employeeId, null);
+            jdbcTemplate.update(INSERT_SNAPSHOT_SQL, employeeId, state.eventVersion, state.changedAt, state.deleted,
+                    state.firstName, state.lastName, state.mail, state.employeeVersion);
+        }
+    }
+
+    /**
+     * Dernier snapshot antérieur à {@code at} (ou le dernier tout court si null), puis les
+     * modifications suivantes dans l'ordre des versions.
+     */
+    private State replay(long employeeId, Timestamp at) {
+        State state = new State();
+        String snapshotSql = "SELECT event_version, changed_at, deleted, first_name, last_name, mail, employee_version "
+                + "FROM employee_snapshot WHERE employee_id = ?" + (at == null ? "" : " AND changed_at <= ?")
+                + " ORDER BY event_version DESC FETCH FIRST 1 ROWS ONLY";
+        Object[] snapshotArgs = at == null ? new Object[]{employeeId} : new Object[]{employeeId, at};
+        jdbcTemplate.query(snapshotSql, (RowCallbackHandler) rs -> {
+            state.known = true;
+            state.eventVersion = rs.getLong("event_version");
+            state.changedAt = rs.getTimestamp("changed_at");
+            state.deleted = rs.getBoolean("deleted");
+            state.firstName = rs.getString("first_name");
+            state.lastName = rs.getString("last_name");
+            state.mail = rs.getString("mail");
+            state.employeeVersion = getLong(rs, "employee_version");
+        }, snapshotArgs);
+        String historySql = "SELECT event_version, op, changes, employee_version, changed_at FROM employee_history "
+                + "WHERE employee_id = ? AND event_version > ?" + (at == null ? "" : " AND changed_at <= ?")
+                + " ORDER BY event_version";
+        Object[] historyArgs = at == null
+                ? new Object[]{employeeId, state.eventVersion}
+                : new Object[]{employeeId, state.eventVersion, at};
+        jdbcTemplate.query(historySql, (RowCallbackHandler) rs -> state.apply(
+                EmployeeEvent.Op.valueOf(rs.getString("op")), readChanges(rs.getString("changes")),
+                getLong(rs, "employee_version"), rs.getLong("event_version"), rs.getTimestamp("changed_at")), historyArgs);
+        return state;
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private String writeChanges(Map<String, Object> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Object> readChanges(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, CHANGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Etat d'un employé reconstruit à partir d'un snapshot et des modifications suivantes.
+     */
+    static final class State {
+        boolean known;
+        boolean deleted;
+        long eventVersion;
+        Timestamp changedAt;
+        String firstName;
+        String lastName;
+        String mail;
+        Long employeeVersion;
+
+        void apply(EmployeeEvent.Op op, Map<String, Object> changes, Long employeeVersion, long eventVersion,
+                   Timestamp changedAt) {
+            switch (op) {
+                case CREATED, IMPORTED -> {
+                    deleted = false;
+                    firstName = (String) changes.get("firstName");
+                    lastName = (String) changes.get("lastName");
+                    mail = (String) changes.get("mail");
+                }
+                case UPDATED -> {
+                    if (changes.containsKey("firstName")) {
+                        firstName = (String) changes.get("firstName");
+                    }
+                    if (changes.containsKey("lastName")) {
+                        lastName = (String) changes.get("lastName");
+                    }
+                    if (changes.containsKey("mail")) {
+                        mail = (String) changes.get("mail");
+                    }
+                }
+                case DELETED -> {
+                    deleted = true;
+                    firstName = null;
+                    lastName = null;
+                    mail = null;
+                }
+            }
+            known = true;
+            this.employeeVersion = employeeVersion;
+            this.eventVersion = eventVersion;
+            this.changedAt = changedAt;
+        }
+    }
+}
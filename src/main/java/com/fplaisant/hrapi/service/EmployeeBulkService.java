@@ -0,0 +1,404 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.ImportReport;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Import et export en masse des employés.
+ *
+ * L'import lit le corps de la requête ligne à ligne, valide chaque ligne avec les contraintes
+ * de {@link Employee} puis insère par lots JDBC de {@code hrapi.import.batch-size} lignes, un lot
+ * par transaction : l'id IDENTITY empêche Hibernate de regrouper les INSERT. Chaque lot publie
+ * son événement IMPORTED, avec les lignes insérées et leurs ids générés, dans sa propre
+ * transaction : un import interrompu n'en perd aucun pour les lots déjà insérés.
+ *
+ * Les mots de passe d'un lot sont hachés juste avant l'insertion sur un pool dédié de
+ * {@code hrapi.import.hash-threads} threads, partagé par les imports concurrents. Une valeur
+ * fournie est toujours traitée comme un mot de passe en clair, même préfixée par {bcrypt}.
+ *
+ * L'export CSV n'est pas réimportable tel quel : il n'écrit jamais le mot de passe, obligatoire
+ * à l'import. Un export complété d'une colonne {@code password} se réimporte à l'identique.
+ */
+@Service
+public class EmployeeBulkService {
+
+    static final String CSV_HEADER = "first_name,last_name,mail";
+    private static final String INSERT_SQL =
+            "INSERT INTO employees (first_name, last_name, mail, password) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader employeeReader;
+    private final EmployeeService employeeService;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final ThreadPoolTaskExecutor hashExecutor;
+
+    public EmployeeBulkService(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               EmployeeService employeeService,
+                               @Value("${hrapi.import.batch-size:1000}") int batchSize,
+                               @Value("${hrapi.import.max-reported-errors:1000}") int maxReportedErrors,
+                               @Value("${hrapi.import.hash-threads:2}") int hashThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.employeeReader = objectMapper.readerFor(Employee.class);
+        this.employeeService = employeeService;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.hashExecutor = new ThreadPoolTaskExecutor();
+        hashExecutor.setCorePoolSize(hashThreads);
+        hashExecutor.setMaxPoolSize(hashThreads);
+        hashExecutor.setThreadNamePrefix("import-hash-");
+        hashExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    /**
+     * Importe un flux CSV (RFC 4180) dont le premier enregistrement est l'en-tête
+     * ({@code first_name,last_name,mail,password}, dans n'importe quel ordre). Un champ entre
+     * guillemets peut contenir des sauts de ligne, comme ceux écrits par {@link #exportCsv}.
+     */
+    public ImportReport importCsv(InputStream input) throws IOException {
+        Import importRun = new Import();
+        try (BufferedReader reader = newReader(input)) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                return importRun.report;
+            }
+            int[] columns = csvColumns(header);
+            List<String> values;
+            while ((values = csv.next()) != null) {
+                long lineNumber = csv.recordLine();
+                if (!csv.isTerminated()) {
+                    importRun.reject(lineNumber, "guillemet non fermé");
+                    continue;
+                }
+                Employee employee = new Employee();
+                employee.setFirstName(csvValue(values, columns[0]));
+                employee.setLastName(csvValue(values, columns[1]));
+                employee.setMail(csvValue(values, columns[2]));
+                employee.setPassword(csvValue(values, columns[3]));
+                importRun.add(lineNumber, employee);
+            }
+        } finally {
+            // Lecture interrompue : les lignes déjà validées sont insérées comme les lots précédents
+            importRun.flush();
+        }
+        return importRun.report;
+    }
+
+    /**
+     * Importe un flux NDJSON : un objet {@link Employee} par ligne.
+     */
+    public ImportReport importNdjson(InputStream input) throws IOException {
+        Import importRun = new Import();
+        try (BufferedReader reader = newReader(input)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Employee employee;
+                try {
+                    employee = employeeReader.readValue(line);
+                } catch (IOException e) {
+                    importRun.reject(lineNumber, "JSON invalide");
+                    continue;
+                }
+                importRun.add(lineNumber, employee);
+            }
+        } finally {
+            // Lecture interrompue : les lignes déjà validées sont insérées comme les lots précédents
+            importRun.flush();
+        }
+        return importRun.report;
+    }
+
+    /**
+     * Ecrit tous les employés en CSV au fil du curseur. Le mot de passe n'est pas exporté : le
+     * fichier doit être complété d'une colonne {@code password} avant d'être réimporté.
+     */
+    public void exportCsv(OutputStream output) throws IOException {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(StreamUtils.nonClosing(output), StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            employeeService.streamEmployees(employee -> {
+                try {
+                    writer.write(csvEscape(employee.getFirstName()));
+                    writer.write(',');
+                    writer.write(csvEscape(employee.getLastName()));
+                    writer.write(',');
+                    writer.write(csvEscape(employee.getMail()));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static BufferedReader newReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static int[] csvColumns(List<String> header) {
+        int[] columns = {-1, -1, -1, -1};
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT)) {
+                case "firstname" -> columns[0] = i;
+                case "lastname" -> columns[1] = i;
+                case "mail" -> columns[2] = i;
+                case "password" -> columns[3] = i;
+                default -> { }
+            }
+        }
+        return columns;
+    }
+
+    private static String csvValue(List<String> values, int column) {
+        return column >= 0 && column < values.size() ? values.get(column) : null;
+    }
+
+    /**
+     * Lecteur d'enregistrements CSV (RFC 4180). Un champ entre guillemets peut contenir des
+     * virgules, des guillemets doublés et des sauts de ligne : l'enregistrement s'étend alors sur
+     * plusieurs lignes, et chaque saut de ligne du champ est relu comme {@code \n}.
+     */
+    static final class CsvReader {
+        private final BufferedReader reader;
+        private long lineNumber;
+        private long recordLine;
+        private boolean terminated;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Enregistrement suivant, lignes vides ignorées, ou null en fin de flux.
+         */
+        List<String> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+            recordLine = lineNumber;
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"') {
+                            if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                                value.append('"');
+                                i++;
+                            } else {
+                                quoted = false;
+                            }
+                        } else {
+                            value.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        values.add(value.toString());
+                        value.setLength(0);
+                    } else {
+                        value.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                // Saut de ligne dans un champ entre guillemets : l'enregistrement continue
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                lineNumber++;
+                value.append('\n');
+            }
+            values.add(value.toString());
+            terminated = !quoted;
+            return values;
+        }
+
+        /**
+         * Numéro de la première ligne du dernier enregistrement lu.
+         */
+        long recordLine() {
+            return recordLine;
+        }
+
+        /**
+         * Faux si le flux s'est terminé à l'intérieur d'un champ entre guillemets.
+         */
+        boolean isTerminated() {
+            return terminated;
+        }
+    }
+
+    static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Etat d'un import en cours : lot courant et rapport.
+     */
+    private class Import {
+        private final ImportReport report = new ImportReport();
+        private final List<Object[]> batch = new ArrayList<>(batchSize);
+        private long firstLineOfBatch;
+        private long lastLineOfBatch;
+
+        void add(long lineNumber, Employee employee) {
+            Set<ConstraintViolation<Employee>> violations = validator.validate(employee);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<Employee> violation = violations.iterator().next();
+                reject(lineNumber, violation.getPropertyPath() + " : " + violation.getMessage());
+                return;
+            }
+            if (employee.getMail() == null) {
+                reject(lineNumber, "mail : Email obligatoire");
+                return;
+            }
+            if (batch.isEmpty()) {
+                firstLineOfBatch = lineNumber;
+            }
+            lastLineOfBatch = lineNumber;
+            batch.add(new Object[]{employee.getFirstName(), employee.getLastName(), employee.getMail(), employee.getPassword()});
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long lineNumber, String message) {
+            report.setRejected(report.getRejected() + 1);
+            if (report.getErrors().size() < maxReportedErrors) {
+                report.getErrors().add("ligne " + lineNumber + " : " + message);
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            hashPasswords();
+            try {
+                transactionTemplate.executeWithoutResult(status -> employeeService.recordImport(insertBatch()));
+                report.setImported(report.getImported() + batch.size());
+            } catch (DataAccessException e) {
+                report.setRejected(report.getRejected() + batch.size());
+                if (report.getErrors().size() < maxReportedErrors) {
+                    report.getErrors().add("lignes " + firstLineOfBatch + " à " + lastLineOfBatch + " : "
+                            + e.getMostSpecificCause().getMessage());
+                }
+            }
+            batch.clear();
+        }
+
+        // bcrypt domine le coût de l'import : le lot est réparti en tranches sur le pool dédié
+        private void hashPasswords() {
+            int threads = hashExecutor.getMaxPoolSize();
+            int sliceSize = (batch.size() + threads - 1) / threads;
+            List<CompletableFuture<Void>> slices = new ArrayList<>(threads);
+            for (int from = 0; from < batch.size(); from += sliceSize) {
+                List<Object[]> slice = batch.subList(from, Math.min(from + sliceSize, batch.size()));
+                slices.add(CompletableFuture.runAsync(
+                        () -> slice.forEach(row -> row[3] = employeeService.hashPassword((String) row[3])), hashExecutor));
+            }
+            CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new)).join();
+        }
+
+        // Employés insérés, avec leur id généré, dans l'ordre des lignes
+        private List<Employee> insertBatch() {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Object[] row = batch.get(i);
+                            for (int column = 0; column < row.length; column++) {
+                                ps.setObject(column + 1, row[column]);
+                            }
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            List<Employee> employees = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                Object[] row = batch.get(i);
+                Employee employee = new Employee();
+                employee.setId(((Number) keys.get(i).get("id")).longValue());
+                employee.setFirstName((String) row[0]);
+                employee.setLastName((String) row[1]);
+                employee.setMail((String) row[2]);
+                employees.add(employee);
+            }
+            return employees;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalide le cache local à la réception d'un événement employé, pour que les écritures
+ * faites sur un autre noeud soient visibles ici sans attendre l'expiration.
+ */
+@Component
+public class EmployeeCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    public EmployeeCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @EventListener
+    public void onEmployeeEvent(EmployeeEvent event) {
+        evict(event.getId());
+    }
+
+    /**
+     * Invalide à nouveau au commit de la transaction courante, ou immédiatement hors transaction.
+     * Le {@code @CacheEvict} des écritures passe avant le commit : une lecture concurrente peut
+     * remettre en cache l'ancienne ligne entre les deux. Caffeine attend la fin d'un chargement
+     * en cours sur la même clé avant de l'invalider.
+     */
+    public void evictAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id);
+            }
+        });
+    }
+
+    private void evict(Long id) {
+        Cache employeeCache = cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE);
+        if (employeeCache != null) {
+            // Un import n'a pas d'id : les ids absents mis en cache peuvent maintenant exister
+            if (id != null) {
+                employeeCache.evict(id);
+            } else {
+                employeeCache.clear();
+            }
+        }
+        Cache employeesCache = cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE);
+        if (employeesCache != null) {
+            employeesCache.clear();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Consomme le flux d'événements employés (y compris ceux publiés par les autres noeuds hrapi)
+ * et les republie localement en {@link EmployeeEvent}. Chaque noeud a son propre groupe de
+ * consommateurs pour recevoir tous les événements. Le format (JSON ou protobuf) est lu dans
+ * l'en-tête {@code contentType} de chaque message.
+ */
+@Component
+@ConditionalOnProperty(name = "hrapi.events.consumer.enabled", havingValue = "true")
+public class EmployeeEventListener {
+
+    private final EmployeeEventSerializer eventSerializer;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EmployeeEventListener(EmployeeEventSerializer eventSerializer, ApplicationEventPublisher eventPublisher) {
+        this.eventSerializer = eventSerializer;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @KafkaListener(topics = {"employee-add", "employee-update", "employee-delete"}, groupId = "hrapi-${random.uuid}")
+    public void onEmployeeEvent(ConsumerRecord<String, byte[]> record) throws IOException {
+        Header contentType = record.headers().lastHeader(EmployeeEventSerializer.CONTENT_TYPE_HEADER);
+        EmployeeEvent event = eventSerializer.fromRecordValue(record.value(),
+                contentType == null ? null : new String(contentType.value(), StandardCharsets.UTF_8));
+        eventPublisher.publishEvent(event);
+    }
+}
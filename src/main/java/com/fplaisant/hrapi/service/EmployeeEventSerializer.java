@@ -0,0 +1,63 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Format des événements employés sur Kafka, choisi par {@code hrapi.events.format} (json ou protobuf).
+ *
+ * L'outbox garde le JSON : le relais le convertit au moment de l'envoi et indique le format dans
+ * l'en-tête {@value #CONTENT_TYPE_HEADER}. Le consommateur décode d'après cet en-tête (JSON en
+ * son absence), ce qui permet de changer de format noeud par noeud.
+ */
+@Component
+public class EmployeeEventSerializer {
+
+    public static final String CONTENT_TYPE_HEADER = "contentType";
+
+    public enum Format { JSON, PROTOBUF }
+
+    private final ObjectReader eventReader;
+    private final EmployeeProtobufCodec protobufCodec;
+    private final Format format;
+
+    public EmployeeEventSerializer(ObjectMapper objectMapper, EmployeeProtobufCodec protobufCodec,
+                                   @Value("${hrapi.events.format:json}") String format) {
+        this.eventReader = objectMapper.readerFor(EmployeeEvent.class);
+        this.protobufCodec = protobufCodec;
+        this.format = Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public String contentType() {
+        return format == Format.PROTOBUF ? EmployeeProtobufCodec.MEDIA_TYPE : MimeTypeUtils.APPLICATION_JSON_VALUE;
+    }
+
+    /**
+     * Valeur du message Kafka pour un événement enregistré en JSON dans l'outbox.
+     */
+    public byte[] toRecordValue(String payload) throws IOException {
+        if (format == Format.JSON) {
+            return payload.getBytes(StandardCharsets.UTF_8);
+        }
+        return protobufCodec.encode(eventReader.<EmployeeEvent>readValue(payload));
+    }
+
+    public EmployeeEvent fromRecordValue(byte[] value, String contentType) throws IOException {
+        if (contentType != null && contentType.startsWith(EmployeeProtobufCodec.MEDIA_TYPE)) {
+            return protobufCodec.decodeEvent(value);
+        }
+        return eventReader.readValue(value);
+    }
+}
@@ -0,0 +1,196 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.EmployeePatch;
+import com.fplaisant.hrapi.model.PatchReport;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Modifications partielles (JSON Merge Patch) sans lecture préalable de l'employé.
+ *
+ * Chaque modification est un seul {@code UPDATE} limité aux colonnes présentes dans le patch,
+ * qui incrémente la version ; avec une version attendue, la clause {@code AND version = ?}
+ * rend la modification conditionnelle (verrouillage optimiste). En masse, les modifications
+ * portant sur les mêmes colonnes sont regroupées en un lot JDBC, le tout dans une transaction.
+ */
+@Service
+public class EmployeePatchService {
+
+    // Champs modifiables, dans l'ordre des colonnes de la requête
+    private static final Map<String, String> COLUMNS = new TreeMap<>(Map.of(
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "mail", "mail",
+            "password", "password"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+    private final PasswordEncoder passwordEncoder;
+    private final EmployeeService employeeService;
+
+    public EmployeePatchService(JdbcTemplate jdbcTemplate, Validator validator, PasswordEncoder passwordEncoder,
+                                EmployeeService employeeService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.passwordEncoder = passwordEncoder;
+        this.employeeService = employeeService;
+    }
+
+    /**
+     * Vérifie un patch avec les contraintes de {@link Employee}. Les champs sont tous obligatoires :
+     * une valeur null (suppression en Merge Patch) est refusée.
+     */
+    public List<String> validate(Map<String, Object> changes) {
+        List<String> errors = new ArrayList<>();
+        if (changes == null || changes.isEmpty()) {
+            errors.add("Aucun champ à modifier");
+            return errors;
+        }
+        changes.forEach((field, value) -> {
+            if (!COLUMNS.containsKey(field)) {
+                errors.add(field + " : champ non modifiable");
+            } else if (!(value instanceof String text)) {
+                errors.add(field + " : " + (value == null ? "ne peut pas être supprimé" : "texte attendu"));
+            } else {
+                for (ConstraintViolation<Employee> violation : validator.validateValue(Employee.class, field, text)) {
+                    errors.add(field + " : " + violation.getMessage());
+                }
+            }
+        });
+        return errors;
+    }
+
+    public List<String> validateAll(List<EmployeePatch> patches) {
+        List<String> errors = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        for (EmployeePatch patch : patches) {
+            if (patch.getId() == null) {
+                errors.add("id manquant");
+                continue;
+            }
+            if (!ids.add(patch.getId())) {
+                errors.add(patch.getId() + " : id en double");
+            }
+            validate(patch.getChanges()).forEach(error -> errors.add(patch.getId() + " : " + error));
+        }
+        return errors;
+    }
+
+    /**
+     * @return false si l'employé n'existe pas
+     * @throws OptimisticLockingFailureException si l'employé n'est plus à {@code expectedVersion}
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EmployeeService.EMPLOYEE_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = EmployeeService.EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public boolean patch(final Long id, Map<String, Object> changes, Long expectedVersion) {
+        return apply(List.of(new EmployeePatch(id, expectedVersion, changes))).getPatched() == 1;
+    }
+
+    /**
+     * Applique toutes les modifications ou aucune : un conflit de version annule la transaction.
+     * Les ids inexistants sont ignorés et signalés dans le rapport.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EmployeeService.EMPLOYEE_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = EmployeeService.EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public PatchReport patchAll(List<EmployeePatch> patches) {
+        return apply(patches);
+    }
+
+    private PatchReport apply(List<EmployeePatch> patches) {
+        // Un lot JDBC par forme de requête (colonnes modifiées, avec ou sans version)
+        Map<String, List<EmployeePatch>> statements = new LinkedHashMap<>();
+        for (EmployeePatch patch : patches) {
+            statements.computeIfAbsent(updateSql(patch), sql -> new ArrayList<>()).add(patch);
+        }
+        PatchReport report = new PatchReport();
+        List<EmployeeEvent> events = new ArrayList<>();
+        statements.forEach((sql, batch) -> {
+            List<Object[]> arguments = new ArrayList<>(batch.size());
+            for (EmployeePatch patch : batch) {
+                arguments.add(arguments(patch));
+            }
+            int[] counts = jdbcTemplate.batchUpdate(sql, arguments);
+            for (int i = 0; i < batch.size(); i++) {
+                EmployeePatch patch = batch.get(i);
+                // Statement.SUCCESS_NO_INFO (-2) : le pilote n'a pas compté, la ligne a été modifiée
+                if (counts[i] != 0) {
+                    report.setPatched(report.getPatched() + 1);
+                    // Version publiée par publishUpdates ; la version JPA n'est connue qu'avec une version attendue
+                    Long employeeVersion = patch.getVersion() == null ? null : patch.getVersion() + 1;
+                    events.add(EmployeeEvent.updated(patch.getId(), publicChanges(patch.getChanges()), 0,
+                            employeeVersion));
+                } else if (patch.getVersion() != null && exists(patch.getId())) {
+                    throw new OptimisticLockingFailureException(
+                            "Employé " + patch.getId() + " modifié depuis la version " + patch.getVersion());
+                } else {
+                    report.getMissing().add(patch.getId());
+                }
+            }
+        });
+        employeeService.publishUpdates(events);
+        return report;
+    }
+
+    static String updateSql(EmployeePatch patch) {
+        StringBuilder sql = new StringBuilder("UPDATE employees SET ");
+        COLUMNS.forEach((field, column) -> {
+            if (patch.getChanges().containsKey(field)) {
+                sql.append(column).append(" = ?, ");
+            }
+        });
+        sql.append("version = version + 1 WHERE id = ?");
+        if (patch.getVersion() != null) {
+            sql.append(" AND version = ?");
+        }
+        return sql.toString();
+    }
+
+    private Object[] arguments(EmployeePatch patch) {
+        List<Object> arguments = new ArrayList<>();
+        COLUMNS.keySet().forEach(field -> {
+            if (patch.getChanges().containsKey(field)) {
+                Object value = patch.getChanges().get(field);
+                arguments.add("password".equals(field) ? passwordEncoder.encode((String) value) : value);
+            }
+        });
+        arguments.add(patch.getId());
+        if (patch.getVersion() != null) {
+            arguments.add(patch.getVersion());
+        }
+        return arguments.toArray();
+    }
+
+    private static Map<String, Object> publicChanges(Map<String, Object> changes) {
+        Map<String, Object> published = new LinkedHashMap<>(changes);
+        published.remove("password");
+        return published;
+    }
+
+    private boolean exists(Long id) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees WHERE id = ?", Long.class, id);
+        return count != null && count > 0;
+    }
+}
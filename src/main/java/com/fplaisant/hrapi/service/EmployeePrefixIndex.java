@@ -0,0 +1,155 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeSuggestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Index d'autocomplétion en mémoire : pour chaque champ, un tableau de clés triées (en minuscules)
+ * et le tableau des employés correspondants. Une recherche par préfixe est une recherche
+ * dichotomique suivie d'un parcours des {@code limit} entrées suivantes, sans accès à la base.
+ *
+ * Les tableaux sont immuables : l'index est reconstruit en entier quand la version de la
+ * collection a changé, au plus une fois par {@code hrapi.search.prefix-index.refresh-ms}.
+ * Les suggestions peuvent donc être en retard d'un intervalle sur la base.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "hrapi.search.prefix-index.enabled", havingValue = "true")
+public class EmployeePrefixIndex {
+
+    public enum Field {
+        FIRST_NAME(EmployeeSuggestion::getFirstName),
+        LAST_NAME(EmployeeSuggestion::getLastName),
+        MAIL(EmployeeSuggestion::getMail);
+
+        private final Function<EmployeeSuggestion, String> getter;
+
+        Field(Function<EmployeeSuggestion, String> getter) {
+            this.getter = getter;
+        }
+
+        /**
+         * Nom du paramètre HTTP (firstName, lastName, mail) vers le champ.
+         */
+        public static Field fromParameter(String name) {
+            return switch (name) {
+                case "firstName" -> FIRST_NAME;
+                case "lastName" -> LAST_NAME;
+                case "mail" -> MAIL;
+                default -> throw new IllegalArgumentException("Champ de suggestion inconnu : " + name);
+            };
+        }
+    }
+
+    private record Sorted(String[] keys, EmployeeSuggestion[] entries) {
+    }
+
+    private record Snapshot(long version, Map<Field, Sorted> fields) {
+    }
+
+    private final EmployeeService employeeService;
+    private final EmployeeVersionTracker employeeVersionTracker;
+
+    private volatile Snapshot snapshot;
+
+    public EmployeePrefixIndex(EmployeeService employeeService, EmployeeVersionTracker employeeVersionTracker) {
+        this.employeeService = employeeService;
+        this.employeeVersionTracker = employeeVersionTracker;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    @Scheduled(fixedDelayString = "${hrapi.search.prefix-index.refresh-ms:30000}")
+    public void refresh() {
+        Snapshot current = snapshot;
+        if (current == null || current.version() != employeeVersionTracker.currentVersion()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recharge tous les employés et remplace l'index. La version est lue avant le chargement.
+     */
+    public void rebuild() {
+        long version = employeeVersionTracker.currentVersion();
+        List<EmployeeSuggestion> suggestions = new ArrayList<>();
+        employeeService.streamEmployees(employee -> suggestions.add(EmployeeSuggestion.of(employee)));
+        Map<Field, Sorted> fields = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            fields.put(field, sort(suggestions, field));
+        }
+        snapshot = new Snapshot(version, fields);
+        log.info("Index de suggestions reconstruit : {} employés, version {}", suggestions.size(), version);
+    }
+
+    /**
+     * Au plus {@code limit} employés dont le champ commence par {@code prefix}, sans tenir compte de la casse.
+     */
+    public List<EmployeeSuggestion> lookup(Field field, String prefix, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        Sorted sorted = current.fields().get(field);
+        String key = normalize(prefix);
+        List<EmployeeSuggestion> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(sorted.keys(), key); i < sorted.keys().length && result.size() < limit; i++) {
+            if (!sorted.keys()[i].startsWith(key)) {
+                break;
+            }
+            result.add(sorted.entries()[i]);
+        }
+        return result;
+    }
+
+    private static Sorted sort(List<EmployeeSuggestion> suggestions, Field field) {
+        EmployeeSuggestion[] entries = suggestions.toArray(new EmployeeSuggestion[0]);
+        String[] keys = new String[entries.length];
+        Integer[] order = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = normalize(field.getter.apply(entries[i]));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> keys[i])
+                .thenComparing(i -> entries[i].getId()));
+        String[] sortedKeys = new String[entries.length];
+        EmployeeSuggestion[] sortedEntries = new EmployeeSuggestion[entries.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedEntries[i] = entries[order[i]];
+        }
+        return new Sorted(sortedKeys, sortedEntries);
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,17 +1,46 @@
 package com.fplaisant.hrapi.service;
 
-import org.springframework.kafka.core.KafkaTemplate;
+import com.fplaisant.hrapi.model.OutboxEvent;
+import com.fplaisant.hrapi.repository.OutboxEventRepository;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+
+/**
+ * Enregistre les événements employés dans l'outbox. L'envoi vers Kafka est fait
+ * en arrière-plan par {@link OutboxRelay}, hors du thread de la requête.
+ */
 @Service
 public class EmployeeProducer {
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final Tracer tracer;
 
-    public EmployeeProducer(KafkaTemplate<String, String> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public EmployeeProducer(OutboxEventRepository outboxEventRepository, Tracer tracer) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.tracer = tracer;
     }
 
-    public void sendEmployeeEvent(String topic, String employeeJson) {
-        kafkaTemplate.send(topic, employeeJson);
+    /**
+     * Doit être appelé dans la transaction qui modifie l'employé : l'événement est
+     * commité (ou annulé) en même temps que la modification.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sendEmployeeEvent(String topic, String key, String employeeJson) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTopic(topic);
+        event.setMessageKey(key);
+        event.setPayload(employeeJson);
+        event.setCreatedAt(Instant.now());
+        Span span = tracer.currentSpan();
+        event.setTraceId(span == null ? null : span.context().traceId());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        event.setActor(authentication == null ? null : authentication.getName());
+        outboxEventRepository.save(event);
     }
-}
\ No newline at end of file
+}
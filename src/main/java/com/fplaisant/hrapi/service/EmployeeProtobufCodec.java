@@ -0,0 +1,354 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodage binaire Protocol Buffers des employés et des événements, selon le schéma
+ * {@code proto/hrapi.proto} livré dans le jar : un consommateur génère ses classes avec protoc.
+ *
+ * Le format filaire est écrit directement (varints, champs préfixés par leur longueur), sans
+ * classes générées ni dépendance. Sans état : une seule instance partagée par tous les threads.
+ * Le mot de passe ne fait pas partie du schéma.
+ */
+@Component
+public class EmployeeProtobufCodec {
+
+    public static final String MEDIA_TYPE = "application/x-protobuf";
+
+    private static final int VARINT = 0;
+    private static final int LENGTH_DELIMITED = 2;
+
+    // message Employee
+    private static final int EMPLOYEE_ID = 1;
+    private static final int EMPLOYEE_FIRST_NAME = 2;
+    private static final int EMPLOYEE_LAST_NAME = 3;
+    private static final int EMPLOYEE_MAIL = 4;
+    private static final int EMPLOYEE_VERSION = 5;
+
+    // message EmployeeList
+    private static final int LIST_EMPLOYEES = 1;
+
+    // message EmployeeEvent
+    private static final int EVENT_OP = 1;
+    private static final int EVENT_ID = 2;
+    private static final int EVENT_VERSION = 3;
+    private static final int EVENT_TIMESTAMP = 4;
+    private static final int EVENT_EMPLOYEE_VERSION = 5;
+    private static final int EVENT_FIRST_NAME = 6;
+    private static final int EVENT_LAST_NAME = 7;
+    private static final int EVENT_MAIL = 8;
+    private static final int EVENT_EMPLOYEES = 12;
+
+    private static final Map<String, Integer> CHANGE_FIELDS = Map.of(
+            "firstName", EVENT_FIRST_NAME,
+            "lastName", EVENT_LAST_NAME,
+            "mail", EVENT_MAIL,
+            "employees", EVENT_EMPLOYEES);
+
+    public byte[] encode(Employee employee) {
+        Output output = new Output(64);
+        writeEmployee(output, employee);
+        return output.toByteArray();
+    }
+
+    /**
+     * Ecrit un message EmployeeList au fil de l'itération : un employé encodé à la fois.
+     */
+    public void writeEmployees(Iterable<Employee> employees, OutputStream outputStream) throws IOException {
+        Output output = new Output(64);
+        Output field = new Output(16);
+        for (Employee employee : employees) {
+            output.reset();
+            writeEmployee(output, employee);
+            field.reset();
+            field.writeTag(LIST_EMPLOYEES, LENGTH_DELIMITED);
+            field.writeVarint(output.size());
+            field.writeTo(outputStream);
+            output.writeTo(outputStream);
+        }
+    }
+
+    public Employee decodeEmployee(byte[] bytes) {
+        return readEmployee(new Input(bytes, 0, bytes.length));
+    }
+
+    public List<Employee> decodeEmployees(byte[] bytes) {
+        List<Employee> employees = new ArrayList<>();
+        Input input = new Input(bytes, 0, bytes.length);
+        while (input.hasMore()) {
+            int tag = input.readTag();
+            if (tag >>> 3 == LIST_EMPLOYEES && (tag & 7) == LENGTH_DELIMITED) {
+                int length = input.readLength();
+                employees.add(readEmployee(new Input(bytes, input.position, input.position + length)));
+                input.position += length;
+            } else {
+                input.skip(tag);
+            }
+        }
+        return employees;
+    }
+
+    public byte[] encode(EmployeeEvent event) {
+        Output output = new Output(64);
+        if (event.getOp() != null) {
+            output.writeInt64(EVENT_OP, event.getOp().ordinal());
+        }
+        if (event.getId() != null) {
+            output.writeInt64(EVENT_ID, event.getId());
+        }
+        output.writeInt64(EVENT_VERSION, event.getVersion());
+        output.writeInt64(EVENT_TIMESTAMP, event.getTimestamp());
+        if (event.getEmployeeVersion() != null) {
+            output.writeInt64(EVENT_EMPLOYEE_VERSION, event.getEmployeeVersion());
+        }
+        if (event.getChanges() != null) {
+            event.getChanges().forEach((name, value) -> {
+                Integer field = CHANGE_FIELDS.get(name);
+                if (field == null) {
+                    throw new IllegalArgumentException("Champ d'événement hors schéma : " + name);
+                }
+                if (field == EVENT_EMPLOYEES) {
+                    Output embedded = new Output(64);
+                    for (Employee employee : event.importedEmployees()) {
+                        embedded.reset();
+                        writeEmployee(embedded, employee);
+                        output.writeEmbedded(field, embedded);
+                    }
+                } else if (value instanceof Number number) {
+                    output.writeInt64(field, number.longValue());
+                } else {
+                    output.writeString(field, (String) value);
+                }
+            });
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException si le message est tronqué ou si son op n'existe pas dans
+     * cette version du schéma (un événement ne peut pas être appliqué sans connaître son op)
+     */
+    public EmployeeEvent decodeEvent(byte[] bytes) {
+        EmployeeEvent event = new EmployeeEvent();
+        // proto3 : un op absent vaut CREATED (0), que protoc n'écrit pas
+        event.setOp(EmployeeEvent.Op.CREATED);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        event.setChanges(changes);
+        Input input = new Input(bytes, 0, bytes.length);
+        while (input.hasMore()) {
+            int tag = input.readTag();
+            switch (tag >>> 3) {
+                case EVENT_OP -> event.setOp(readOp(input.readVarint()));
+                case EVENT_ID -> event.setId(input.readVarint());
+                case EVENT_VERSION -> event.setVersion(input.readVarint());
+                case EVENT_TIMESTAMP -> event.setTimestamp(input.readVarint());
+                case EVENT_EMPLOYEE_VERSION -> event.setEmployeeVersion(input.readVarint());
+                case EVENT_FIRST_NAME -> changes.put("firstName", input.readString());
+                case EVENT_LAST_NAME -> changes.put("lastName", input.readString());
+                case EVENT_MAIL -> changes.put("mail", input.readString());
+                case EVENT_EMPLOYEES -> {
+                    int length = input.readLength();
+                    Employee employee = readEmployee(new Input(bytes, input.position, input.position + length));
+                    input.position += length;
+                    importedEmployees(changes).add(EmployeeEvent.importedFields(employee));
+                }
+                default -> input.skip(tag);
+            }
+        }
+        return event;
+    }
+
+    private static EmployeeEvent.Op readOp(long value) {
+        EmployeeEvent.Op[] ops = EmployeeEvent.Op.values();
+        if (value < 0 || value >= ops.length) {
+            throw new IllegalArgumentException("Op d'événement inconnu : " + value);
+        }
+        return ops[(int) value];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> importedEmployees(Map<String, Object> changes) {
+        return (List<Map<String, Object>>) changes.computeIfAbsent("employees", name -> new ArrayList<>());
+    }
+
+    private static void writeEmployee(Output output, Employee employee) {
+        if (employee.getId() != null) {
+            output.writeInt64(EMPLOYEE_ID, employee.getId());
+        }
+        output.writeString(EMPLOYEE_FIRST_NAME, employee.getFirstName());
+        output.writeString(EMPLOYEE_LAST_NAME, employee.getLastName());
+        output.writeString(EMPLOYEE_MAIL, employee.getMail());
+        if (employee.getVersion() != 0) {
+            output.writeInt64(EMPLOYEE_VERSION, employee.getVersion());
+        }
+    }
+
+    private static Employee readEmployee(Input input) {
+        Employee employee = new Employee();
+        while (input.hasMore()) {
+            int tag = input.readTag();
+            switch (tag >>> 3) {
+                case EMPLOYEE_ID -> employee.setId(input.readVarint());
+                case EMPLOYEE_FIRST_NAME -> employee.setFirstName(input.readString());
+                case EMPLOYEE_LAST_NAME -> employee.setLastName(input.readString());
+                case EMPLOYEE_MAIL -> employee.setMail(input.readString());
+                case EMPLOYEE_VERSION -> employee.setVersion(input.readVarint());
+                default -> input.skip(tag);
+            }
+        }
+        return employee;
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeTag(int field, int wireType) {
+            writeVarint((long) field << 3 | wireType);
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeInt64(int field, long value) {
+            writeTag(field, VARINT);
+            writeVarint(value);
+        }
+
+        // Message imbriqué : sa longueur puis son contenu
+        void writeEmbedded(int field, Output message) {
+            writeTag(field, LENGTH_DELIMITED);
+            writeVarint(message.size);
+            ensureCapacity(message.size);
+            System.arraycopy(message.buffer, 0, buffer, size, message.size);
+            size += message.size;
+        }
+
+        // Une chaîne null n'est pas écrite (champ absent)
+        void writeString(int field, String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeTag(field, LENGTH_DELIMITED);
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeTo(OutputStream outputStream) throws IOException {
+            outputStream.write(buffer, 0, size);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Input(byte[] buffer, int position, int limit) {
+            if (position < 0 || limit > buffer.length || position > limit) {
+                throw new IllegalArgumentException("Message protobuf tronqué");
+            }
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean hasMore() {
+            return position < limit;
+        }
+
+        int readTag() {
+            return (int) readVarint();
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new IllegalArgumentException("Message protobuf tronqué");
+                }
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint protobuf invalide");
+        }
+
+        int readLength() {
+            long length = readVarint();
+            if (length < 0 || length > limit - position) {
+                throw new IllegalArgumentException("Message protobuf tronqué");
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        // Champ inconnu (schéma plus récent) : ignoré
+        void skip(int tag) {
+            switch (tag & 7) {
+                case VARINT -> readVarint();
+                case 1 -> advance(8);
+                case LENGTH_DELIMITED -> advance(readLength());
+                case 5 -> advance(4);
+                default -> throw new IllegalArgumentException("Type de champ protobuf non supporté : " + (tag & 7));
+            }
+        }
+
+        private void advance(int length) {
+            if (length > limit - position) {
+                throw new IllegalArgumentException("Message protobuf tronqué");
+            }
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeSuggestion;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.fplaisant.hrapi.repository.EmployeeSpecifications.*;
+
+/**
+ * Recherche côté serveur : filtres par préfixe, tri et pagination en base, et autocomplétion
+ * servie par {@link EmployeePrefixIndex} lorsqu'il est activé (sinon par une requête LIKE indexée).
+ */
+@Service
+public class EmployeeSearchService {
+
+    private static final Set<String> SORTABLE = Set.of("id", "firstName", "lastName", "mail");
+    private static final int MAX_SUGGESTIONS = 100;
+
+    private final EmployeeRepository employeeRepository;
+    private final ObjectProvider<EmployeePrefixIndex> prefixIndex;
+    private final boolean lowerCasePrefix;
+
+    public EmployeeSearchService(EmployeeRepository employeeRepository, ObjectProvider<EmployeePrefixIndex> prefixIndex,
+                                 @Value("${hrapi.search.lower-case-prefix:false}") boolean lowerCasePrefix) {
+        this.employeeRepository = employeeRepository;
+        this.prefixIndex = prefixIndex;
+        this.lowerCasePrefix = lowerCasePrefix;
+    }
+
+    /**
+     * Les critères vides sont ignorés. L'id est toujours ajouté en fin de tri pour que les pages soient stables.
+     */
+    @Transactional(readOnly = true)
+    public Page<Employee> search(String firstName, String lastName, String mail, String mailPrefix, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Tri non supporté : " + order.getProperty());
+            }
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") == null
+                ? pageable.getSort().and(Sort.by("id"))
+                : pageable.getSort();
+        Specification<Employee> specification = Specification.where(firstNameStartsWith(firstName, lowerCasePrefix))
+                .and(lastNameStartsWith(lastName, lowerCasePrefix))
+                .and(mailEquals(mail))
+                .and(mailStartsWith(mailPrefix, lowerCasePrefix));
+        return employeeRepository.findAll(specification,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+    }
+
+    public List<EmployeeSuggestion> suggest(EmployeePrefixIndex.Field field, String prefix, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        EmployeePrefixIndex index = prefixIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.lookup(field, prefix, size);
+        }
+        List<Employee> employees = lowerCasePrefix ? suggestLowerCase(field, prefix, size) : switch (field) {
+            case FIRST_NAME -> employeeRepository.findByFirstNameStartingWithOrderByFirstNameAsc(prefix, Limit.of(size));
+            case LAST_NAME -> employeeRepository.findByLastNameStartingWithOrderByLastNameAscFirstNameAsc(prefix, Limit.of(size));
+            case MAIL -> employeeRepository.findByMailStartingWithOrderByMailAsc(prefix, Limit.of(size));
+        };
+        return employees.stream().map(EmployeeSuggestion::of).toList();
+    }
+
+    private List<Employee> suggestLowerCase(EmployeePrefixIndex.Field field, String prefix, int size) {
+        String pattern = lowerPrefixPattern(prefix);
+        return switch (field) {
+            case FIRST_NAME -> employeeRepository.findByLowerFirstNameLike(pattern, Limit.of(size));
+            case LAST_NAME -> employeeRepository.findByLowerLastNameLike(pattern, Limit.of(size));
+            case MAIL -> employeeRepository.findByLowerMailLike(pattern, Limit.of(size));
+        };
+    }
+}
@@ -1,34 +1,372 @@
 package com.fplaisant.hrapi.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
 import com.fplaisant.hrapi.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Slf4j
 @Data
 @Service
 public class EmployeeService {
 
+    public static final String EMPLOYEE_CACHE = "employee";
+    public static final String EMPLOYEES_CACHE = "employees";
+    private static final String NOOP_PREFIX = "{noop}";
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeProducer employeeProducer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EmployeeVersionTracker employeeVersionTracker;
+
+    @Autowired
+    private EmployeeCacheInvalidator employeeCacheInvalidator;
+
+    // Présente seulement avec hrapi.view.enabled=true
+    @Autowired(required = false)
+    private EmployeeView employeeView;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${hrapi.employees.max-list-size:10000}")
+    private int maxListSize;
+
+    /**
+     * Lecture depuis la vue matérialisée quand elle est à jour, sinon via le cache : en cas de miss
+     * concurrents sur le même id, une seule requête part en base.
+     */
+    @Cacheable(cacheNames = EMPLOYEE_CACHE, key = "#id", sync = true, condition = "!#root.target.servedFromView()")
     public Optional<Employee> getEmployee(final Long id) {
+        if (servedFromView()) {
+            return employeeView.getEmployee(id);
+        }
         return employeeRepository.findById(id);
     }
 
+    /**
+     * Renvoie au plus {@code hrapi.employees.max-list-size} employés (les premiers par id).
+     * Au-delà, utiliser {@link #getEmployeesAfter(Long, int)} ou {@link #streamEmployees(Consumer)}.
+     */
+    @Cacheable(cacheNames = EMPLOYEES_CACHE, sync = true, condition = "!#root.target.servedFromView()")
     public Iterable<Employee> getEmployees() {
-        return employeeRepository.findAll();
+        if (servedFromView()) {
+            return employeeView.getEmployees();
+        }
+        return employeeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(maxListSize));
     }
 
+    /**
+     * Vrai si la vue matérialisée a appliqué toutes les écritures connues de ce noeud,
+     * y compris les siennes : les lectures peuvent alors se passer de la base.
+     */
+    public boolean servedFromView() {
+        return employeeView != null && employeeView.isFresh();
+    }
+
+    /**
+     * Lecture sans cache : servie par le réplica lorsqu'il est configuré. getEmployee() et
+     * getEmployees() restent sur le primaire pour ne pas remettre en cache une ligne que le
+     * réplica n'a pas encore reçue.
+     */
+    @Transactional(readOnly = true)
+    public List<Employee> getEmployeesAfter(final Long afterId, final int size) {
+        int pageSize = Math.max(1, Math.min(size, maxListSize));
+        return employeeRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize));
+    }
+
+    /**
+     * Passe chaque employé au consumer au fil du curseur JDBC. Les entités sont détachées
+     * une fois consommées pour que le contexte de persistance ne grossisse pas.
+     */
+    @Transactional(readOnly = true)
+    public void streamEmployees(Consumer<Employee> consumer) {
+        streamAll(consumer);
+    }
+
+    /**
+     * Comme {@link #streamEmployees(Consumer)}, mais sur le primaire : un snapshot doit contenir
+     * toutes les écritures jusqu'à {@link #currentEventVersion()}, lue juste avant sur le primaire,
+     * ce qu'un réplica en retard ne garantit pas.
+     */
+    @Transactional
+    public void streamSnapshot(Consumer<Employee> consumer) {
+        streamAll(consumer);
+    }
+
+    private void streamAll(Consumer<Employee> consumer) {
+        try (Stream<Employee> employees = employeeRepository.streamAll()) {
+            employees.forEach(employee -> {
+                consumer.accept(employee);
+                entityManager.detach(employee);
+            });
+        }
+    }
+
+    /**
+     * Attribue la prochaine version d'événement. Appelée dans la transaction d'écriture,
+     * elle garantit des versions strictement croissantes dans l'ordre des commits.
+     */
+    @Transactional
+    public long nextEventVersion() {
+        employeeRepository.incrementVersion();
+        long version = employeeRepository.currentVersion();
+        employeeVersionTracker.advanceAfterCommit(version);
+        return version;
+    }
+
+    /**
+     * Réserve {@code count} versions consécutives et renvoie la dernière.
+     */
+    @Transactional
+    public long nextEventVersions(int count) {
+        employeeRepository.incrementVersionBy(count);
+        long version = employeeRepository.currentVersion();
+        employeeVersionTracker.advanceAfterCommit(version);
+        return version;
+    }
+
+    public long currentEventVersion() {
+        return employeeRepository.currentVersion();
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
     public void deleteEmployee(final Long id) {
         employeeRepository.deleteById(id);
     }
 
+    /**
+     * Enregistre l'employé tel quel : le mot de passe doit déjà être encodé.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#result.id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
     public Employee saveEmployee(Employee employee) {
         return employeeRepository.save(employee);
     }
 
+    /**
+     * Crée l'employé et enregistre l'événement dans l'outbox, dans la même transaction.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#result.id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public Employee createEmployee(Employee employee) {
+        employee.setPassword(passwordEncoder.encode(employee.getPassword()));
+        return insertEmployee(employee);
+    }
+
+    /**
+     * Comme {@link #createEmployee(Employee)}, le mot de passe étant déjà encodé (écritures asynchrones).
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#result.id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public Employee createEncodedEmployee(Employee employee) {
+        return insertEmployee(employee);
+    }
+
+    private Employee insertEmployee(Employee employee) {
+        Employee savedEmployee = employeeRepository.save(employee);
+        publishEvent("employee-add", EmployeeEvent.created(savedEmployee, nextEventVersion()));
+        return savedEmployee;
+    }
+
+    /**
+     * Applique les champs non nuls de {@code newEmployee} et publie uniquement ceux qui ont changé.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public Optional<Employee> updateEmployee(final Long id, Employee newEmployee) {
+        return applyUpdate(id, newEmployee, false);
+    }
+
+    /**
+     * Comme {@link #updateEmployee(Long, Employee)}, le mot de passe étant déjà encodé (écritures asynchrones).
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public Optional<Employee> updateEncodedEmployee(final Long id, Employee newEmployee) {
+        return applyUpdate(id, newEmployee, true);
+    }
+
+    private Optional<Employee> applyUpdate(final Long id, Employee newEmployee, boolean passwordEncoded) {
+        Optional<Employee> employee = employeeRepository.findById(id);
+        if(employee.isEmpty()) {
+            return employee;
+        }
+        Employee currentEmployee = employee.get();
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if(newEmployee.getFirstName() != null && !newEmployee.getFirstName().equals(currentEmployee.getFirstName())) {
+            currentEmployee.setFirstName(newEmployee.getFirstName());
+            changes.put("firstName", newEmployee.getFirstName());
+        }
+        if(newEmployee.getLastName() != null && !newEmployee.getLastName().equals(currentEmployee.getLastName())) {
+            currentEmployee.setLastName(newEmployee.getLastName());
+            changes.put("lastName", newEmployee.getLastName());
+        }
+        if(newEmployee.getMail() != null && !Objects.equals(newEmployee.getMail(), currentEmployee.getMail())) {
+            currentEmployee.setMail(newEmployee.getMail());
+            changes.put("mail", newEmployee.getMail());
+        }
+        boolean passwordChanged;
+        if(passwordEncoded) {
+            passwordChanged = newEmployee.getPassword() != null
+                    && !newEmployee.getPassword().equals(currentEmployee.getPassword());
+            if(passwordChanged) currentEmployee.setPassword(newEmployee.getPassword());
+        } else {
+            // Réencoder un mot de passe inchangé modifierait le hash (sel aléatoire) et la version
+            passwordChanged = newEmployee.getPassword() != null
+                    && !passwordEncoder.matches(newEmployee.getPassword(), currentEmployee.getPassword());
+            if(passwordChanged) currentEmployee.setPassword(passwordEncoder.encode(newEmployee.getPassword()));
+        }
+        Employee savedEmployee = employeeRepository.save(currentEmployee);
+        if(!changes.isEmpty() || passwordChanged) {
+            // Flush pour que l'événement porte la version JPA incrémentée
+            entityManager.flush();
+            publishEvent("employee-update",
+                    EmployeeEvent.updated(id, changes, nextEventVersion(), savedEmployee.getVersion()));
+        }
+        return Optional.of(savedEmployee);
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public void removeEmployee(final Long id) {
+        employeeRepository.deleteById(id);
+        publishEvent("employee-delete", EmployeeEvent.deleted(id, nextEventVersion()));
+    }
+
+    /**
+     * Vrai si {@code rawPassword} est le mot de passe actuel de l'employé, lu sur le primaire.
+     */
+    public boolean passwordMatches(final Long id, final String rawPassword) {
+        return employeeRepository.findById(id)
+                .map(employee -> passwordEncoder.matches(rawPassword, employee.getPassword()))
+                .orElse(false);
+    }
+
+    /**
+     * Encode un mot de passe en clair fourni par un client. Une valeur déjà préfixée ({bcrypt}...)
+     * est encodée comme les autres : un client ne peut pas imposer un hash, comme avec
+     * {@link #createEmployee(Employee)}.
+     */
+    public String hashPassword(String password) {
+        if (password == null) {
+            return null;
+        }
+        return passwordEncoder.encode(password);
+    }
+
+    /**
+     * Hache au démarrage les mots de passe restés en clair ({noop}...), ceux d'une base mise à
+     * niveau par data.sql : les employés ne se connectent pas, rien d'autre ne les ré-encoderait.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void hashPlainPasswords() {
+        List<Employee> employees = employeeRepository.findByPasswordStartingWith(NOOP_PREFIX);
+        for (Employee employee : employees) {
+            String password = employee.getPassword();
+            employeeRepository.replacePassword(employee.getId(), password,
+                    passwordEncoder.encode(password.substring(NOOP_PREFIX.length())));
+        }
+        if (!employees.isEmpty()) {
+            log.info("{} mots de passe d'employés en clair hachés", employees.size());
+        }
+    }
+
+    /**
+     * Publie l'événement d'un lot importé en masse, dans la transaction qui vient d'insérer ses lignes.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EMPLOYEE_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = EMPLOYEES_CACHE, allEntries = true)
+    })
+    @Transactional
+    public void recordImport(final List<Employee> employees) {
+        publishEvent("employee-add", EmployeeEvent.imported(employees, nextEventVersion()));
+    }
+
+    /**
+     * Publie les événements de mise à jour dans la transaction des UPDATE, en leur attribuant
+     * des versions consécutives. Un changement de mot de passe seul est publié sans champ,
+     * pour que les consommateurs suivent la version JPA de l'employé.
+     */
+    @Transactional
+    public void publishUpdates(List<EmployeeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long version = nextEventVersions(events.size()) - events.size() + 1;
+        for (EmployeeEvent event : events) {
+            event.setVersion(version++);
+            publishEvent("employee-update", event);
+        }
+    }
+
+    private void publishEvent(String topic, EmployeeEvent event) {
+        String eventJson = null;
+        try {
+            eventJson = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        // La clé est l'id : tous les événements d'un employé vont dans la même partition
+        String key = event.getId() == null ? null : event.getId().toString();
+        employeeProducer.sendEmployeeEvent(topic, key, eventJson);
+        employeeCacheInvalidator.evictAfterCommit(event.getId());
+    }
+
 }
@@ -0,0 +1,154 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.EmployeeUpdates;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pousse les événements employés reçus du flux Kafka vers les abonnés STOMP.
+ *
+ * Les événements sont accumulés puis envoyés toutes les {@code hrapi.websocket.flush-interval-ms}
+ * en un seul message sur {@value #TOPIC}, et un message par employé sur {@code /topic/employees/{id}}.
+ * Plusieurs modifications d'un même employé dans l'intervalle sont fusionnées : le débit sortant
+ * par client ne dépend plus du débit d'écriture. Si plus de {@code hrapi.websocket.max-pending}
+ * employés sont en attente, le lot est abandonné et les clients reçoivent un message {@code resync}.
+ *
+ * Les derniers événements sont conservés pour qu'un client reconnecté reprenne depuis sa
+ * dernière version ({@link #eventsSince(long)}) au lieu de tout recharger.
+ */
+@Component
+public class EmployeeUpdatesBridge {
+
+    public static final String TOPIC = "/topic/employees";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final EmployeeService employeeService;
+    private final int maxPending;
+    private final int historySize;
+
+    private final Object lock = new Object();
+    private Map<Long, EmployeeEvent> pending = new LinkedHashMap<>();
+    private boolean overflowed;
+    private final ArrayDeque<EmployeeEvent> history = new ArrayDeque<>();
+    // Toutes les versions strictement supérieures sont dans history
+    private long retainedAfter;
+    private long lastVersion;
+
+    public EmployeeUpdatesBridge(SimpMessagingTemplate messagingTemplate,
+                                 EmployeeService employeeService,
+                                 @Value("${hrapi.websocket.max-pending:10000}") int maxPending,
+                                 @Value("${hrapi.websocket.history-size:10000}") int historySize) {
+        this.messagingTemplate = messagingTemplate;
+        this.employeeService = employeeService;
+        this.maxPending = maxPending;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Les événements antérieurs au démarrage ne sont pas connus : un client plus ancien doit se resynchroniser.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        long version = employeeService.currentEventVersion();
+        synchronized (lock) {
+            retainedAfter = Math.max(retainedAfter, version);
+            lastVersion = Math.max(lastVersion, version);
+        }
+    }
+
+    @EventListener
+    public void onEmployeeEvent(EmployeeEvent event) {
+        synchronized (lock) {
+            history.addLast(event);
+            while (history.size() > historySize) {
+                retainedAfter = Math.max(retainedAfter, history.removeFirst().getVersion());
+            }
+            lastVersion = Math.max(lastVersion, event.getVersion());
+            if (overflowed) {
+                return;
+            }
+            if (pending.size() >= maxPending) {
+                pending.clear();
+                overflowed = true;
+                return;
+            }
+            // Les imports n'ont pas d'id : clé négative pour ne jamais les fusionner
+            Long key = event.getId() != null ? event.getId() : -event.getVersion();
+            pending.merge(key, event, EmployeeUpdatesBridge::coalesce);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hrapi.websocket.flush-interval-ms:100}")
+    public void flush() {
+        List<EmployeeEvent> events;
+        boolean resync;
+        long version;
+        synchronized (lock) {
+            if (pending.isEmpty() && !overflowed) {
+                return;
+            }
+            events = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            resync = overflowed;
+            overflowed = false;
+            version = lastVersion;
+        }
+        if (resync) {
+            messagingTemplate.convertAndSend(TOPIC, new EmployeeUpdates(true, version, List.of()));
+            return;
+        }
+        events.sort(Comparator.comparingLong(EmployeeEvent::getVersion));
+        messagingTemplate.convertAndSend(TOPIC, new EmployeeUpdates(false, version, events));
+        for (EmployeeEvent event : events) {
+            if (event.getId() != null) {
+                messagingTemplate.convertAndSend(TOPIC + "/" + event.getId(), event);
+            }
+        }
+    }
+
+    /**
+     * Evénements de version strictement supérieure à {@code sinceVersion}, ou demande de
+     * resynchronisation s'ils ne sont plus tous conservés.
+     */
+    public EmployeeUpdates eventsSince(long sinceVersion) {
+        synchronized (lock) {
+            if (sinceVersion < retainedAfter) {
+                return new EmployeeUpdates(true, lastVersion, List.of());
+            }
+            List<EmployeeEvent> events = new ArrayList<>();
+            for (EmployeeEvent event : history) {
+                if (event.getVersion() > sinceVersion) {
+                    events.add(event);
+                }
+            }
+            events.sort(Comparator.comparingLong(EmployeeEvent::getVersion));
+            return new EmployeeUpdates(false, lastVersion, events);
+        }
+    }
+
+    /**
+     * Fusionne deux événements du même employé : les champs modifiés s'accumulent, la version
+     * retenue est la plus récente. Une suppression remplace tout ce qui précède.
+     */
+    static EmployeeEvent coalesce(EmployeeEvent previous, EmployeeEvent next) {
+        if (next.getOp() != EmployeeEvent.Op.UPDATED || previous.getOp() == EmployeeEvent.Op.DELETED) {
+            return next;
+        }
+        Map<String, Object> changes = new LinkedHashMap<>(previous.getChanges());
+        changes.putAll(next.getChanges());
+        return new EmployeeEvent(previous.getOp(), next.getId(), changes,
+                Math.max(previous.getVersion(), next.getVersion()), next.getTimestamp(), next.getEmployeeVersion());
+    }
+}
@@ -0,0 +1,87 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version de la collection d'employés gardée en mémoire, utilisée comme ETag des listes.
+ *
+ * Elle avance après le commit des écritures locales et à la réception des événements des autres
+ * noeuds ; la valeur en base n'est relue qu'au plus une fois par {@code hrapi.employees.version-refresh}.
+ * Le cache des listes est toujours vidé avant que la version n'avance : une liste servie avec
+ * la nouvelle version ne peut donc pas être une liste périmée restée en cache.
+ */
+@Component
+public class EmployeeVersionTracker {
+
+    private final EmployeeRepository employeeRepository;
+    private final CacheManager cacheManager;
+    private final long refreshNanos;
+
+    private final AtomicLong watermark = new AtomicLong(-1);
+    private volatile long refreshedAt;
+    private volatile boolean loaded;
+
+    public EmployeeVersionTracker(EmployeeRepository employeeRepository, CacheManager cacheManager,
+                                  @Value("${hrapi.employees.version-refresh:1s}") Duration refresh) {
+        this.employeeRepository = employeeRepository;
+        this.cacheManager = cacheManager;
+        this.refreshNanos = refresh.toNanos();
+    }
+
+    /**
+     * Version courante de la collection. À lire avant les données, pour qu'un ETag ne soit
+     * jamais plus récent que la représentation renvoyée.
+     */
+    public long currentVersion() {
+        long now = System.nanoTime();
+        if (!loaded || now - refreshedAt > refreshNanos) {
+            advance(employeeRepository.currentVersion());
+            refreshedAt = now;
+            loaded = true;
+        }
+        return watermark.get();
+    }
+
+    /**
+     * Fait avancer la version au commit de la transaction courante, ou immédiatement hors transaction.
+     */
+    public void advanceAfterCommit(long version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance(version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                advance(version);
+            }
+        });
+    }
+
+    @EventListener
+    public void onEmployeeEvent(EmployeeEvent event) {
+        advance(event.getVersion());
+    }
+
+    void advance(long version) {
+        if (version <= watermark.get()) {
+            return;
+        }
+        Cache employeesCache = cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE);
+        if (employeesCache != null) {
+            employeesCache.clear();
+        }
+        watermark.accumulateAndGet(version, Math::max);
+    }
+}
@@ -0,0 +1,356 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Vue matérialisée des employés en mémoire, construite à partir d'un snapshot de la table
+ * puis tenue à jour par le flux d'événements Kafka (republiés localement par {@link EmployeeEventListener}).
+ *
+ * Les employés sont rangés par id dans une {@link LongObjectMap}, sans mot de passe. Chaque entrée
+ * garde la version du dernier événement appliqué : un événement plus ancien, reçu en retard sur un
+ * autre topic, est ignoré. {@code appliedVersion} n'avance que lorsque toutes les versions
+ * précédentes ont été appliquées (les versions d'événements se suivent sans trou).
+ *
+ * {@link EmployeeService} ne sert les lectures depuis la vue que si {@code appliedVersion} a rattrapé
+ * la version connue du noeud ({@link EmployeeVersionTracker}), qui avance au commit des écritures
+ * locales : un client relit donc toujours ses propres écritures, sinon la lecture passe par la base.
+ * Si la vue reste en retard plus de {@code hrapi.view.gap-timeout} (événement perdu), elle est reconstruite.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "hrapi.view.enabled", havingValue = "true")
+public class EmployeeView {
+
+    private static final String SELECT = "SELECT id, first_name, last_name, mail, version FROM employees";
+
+    // employee null : employé supprimé, gardé tant qu'un événement plus ancien peut encore arriver
+    private record Entry(Employee employee, long eventVersion) {
+    }
+
+    private record Tombstone(long id, long eventVersion) {
+    }
+
+    private record Listing(long version, List<Employee> employees) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeVersionTracker employeeVersionTracker;
+    private final int maxListSize;
+    private final long gapTimeoutNanos;
+
+    // Lecteurs : lecture optimiste de la table ; écrivain unique, sous writeMonitor
+    private final StampedLock lock = new StampedLock();
+    private final Object writeMonitor = new Object();
+    private LongObjectMap<Entry> employees = new LongObjectMap<>(0);
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private final Deque<Tombstone> tombstones = new ArrayDeque<>();
+    private volatile long appliedVersion = -1;
+    private volatile boolean ready;
+
+    private final Object listingMonitor = new Object();
+    private volatile Listing listing;
+
+    // Utilisés par le seul thread de checkLag()
+    private long lagSince;
+    private long lagVersion;
+
+    public EmployeeView(JdbcTemplate jdbcTemplate, EmployeeRepository employeeRepository,
+                        EmployeeVersionTracker employeeVersionTracker,
+                        @Value("${hrapi.employees.max-list-size:10000}") int maxListSize,
+                        @Value("${hrapi.view.gap-timeout:10s}") Duration gapTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.employeeRepository = employeeRepository;
+        this.employeeVersionTracker = employeeVersionTracker;
+        this.maxListSize = maxListSize;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * Vrai si la vue contient toutes les écritures connues de ce noeud.
+     */
+    public boolean isFresh() {
+        return ready && appliedVersion >= employeeVersionTracker.currentVersion();
+    }
+
+    public Optional<Employee> getEmployee(long id) {
+        long stamp = lock.tryOptimisticRead();
+        Entry entry = employees.get(id);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                entry = employees.get(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.employee());
+    }
+
+    /**
+     * Les {@code hrapi.employees.max-list-size} premiers employés par id, recalculés une fois par version.
+     */
+    public List<Employee> getEmployees() {
+        long version = appliedVersion;
+        Listing current = listing;
+        if (current != null && current.version() == version) {
+            return current.employees();
+        }
+        synchronized (listingMonitor) {
+            current = listing;
+            if (current != null && current.version() == version) {
+                return current.employees();
+            }
+            List<Employee> result;
+            long stamp = lock.readLock();
+            try {
+                long[] ids = employees.keys();
+                Arrays.sort(ids);
+                result = new ArrayList<>(Math.min(ids.length, maxListSize));
+                for (int i = 0; i < ids.length && result.size() < maxListSize; i++) {
+                    Employee employee = employees.get(ids[i]).employee();
+                    if (employee != null) {
+                        result.add(employee);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            // Etiquetée avec la version lue avant : au pire recalculée une fois de trop
+            listing = new Listing(version, List.copyOf(result));
+            return listing.employees();
+        }
+    }
+
+    /**
+     * Recharge toute la table ; les événements reçus pendant ce temps attendent la fin du chargement.
+     */
+    public void rebuild() {
+        synchronized (writeMonitor) {
+            // Version lue avant les lignes : le snapshot contient au moins toutes les écritures jusqu'à elle
+            long version = employeeRepository.currentVersion();
+            LongObjectMap<Entry> snapshot = new LongObjectMap<>(employees.size());
+            jdbcTemplate.query(SELECT, (RowCallbackHandler) resultSet -> {
+                Employee employee = employee(resultSet);
+                snapshot.put(employee.getId(), new Entry(employee, version));
+            });
+            long stamp = lock.writeLock();
+            try {
+                employees = snapshot;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            tombstones.clear();
+            pending.headSet(version, true).clear();
+            appliedVersion = version;
+            advanceAppliedVersion();
+            ready = true;
+            log.info("Vue des employés chargée : {} employés, version {}", snapshot.size(), version);
+        }
+    }
+
+    @EventListener
+    public void onEmployeeEvent(EmployeeEvent event) {
+        synchronized (writeMonitor) {
+            // Avant le premier snapshot, l'événement y sera inclus
+            if (!ready || event.getVersion() <= appliedVersion) {
+                return;
+            }
+            apply(event);
+            pending.add(event.getVersion());
+            advanceAppliedVersion();
+        }
+    }
+
+    /**
+     * Reconstruit la vue si elle n'a pas progressé depuis {@code hrapi.view.gap-timeout}
+     * alors qu'elle est en retard : un événement a été perdu (abonnement tardif, relais en échec).
+     */
+    @Scheduled(fixedDelayString = "${hrapi.view.lag-check-ms:1000}")
+    public void checkLag() {
+        long version = appliedVersion;
+        if (!ready || version >= employeeVersionTracker.currentVersion()) {
+            lagSince = 0;
+            return;
+        }
+        long now = System.nanoTime();
+        if (lagSince == 0 || version != lagVersion) {
+            lagSince = now;
+            lagVersion = version;
+        } else if (now - lagSince > gapTimeoutNanos) {
+            log.warn("Vue des employés bloquée à la version {}, rechargement", version);
+            rebuild();
+            lagSince = 0;
+        }
+    }
+
+    private void apply(EmployeeEvent event) {
+        long version = event.getVersion();
+        switch (event.getOp()) {
+            case CREATED -> {
+                if (isNewer(event.getId(), version)) {
+                    Employee employee = new Employee();
+                    employee.setId(event.getId());
+                    applyChanges(employee, event.getChanges());
+                    employee.setVersion(event.getEmployeeVersion() == null ? 0 : event.getEmployeeVersion());
+                    put(employee.getId(), new Entry(employee, version));
+                }
+            }
+            case UPDATED -> {
+                Entry current = entry(event.getId());
+                if (current != null && current.eventVersion() >= version) {
+                    return;
+                }
+                if (current == null || current.employee() == null || event.getEmployeeVersion() == null) {
+                    // Création pas encore reçue ou version JPA inconnue : relue en base
+                    reload(event.getId(), version);
+                } else {
+                    // Copie : les lecteurs peuvent être en train de sérialiser l'instance courante
+                    Employee employee = copy(current.employee());
+                    applyChanges(employee, event.getChanges());
+                    employee.setVersion(event.getEmployeeVersion());
+                    put(employee.getId(), new Entry(employee, version));
+                }
+            }
+            case DELETED -> {
+                if (isNewer(event.getId(), version)) {
+                    remove(event.getId(), version);
+                }
+            }
+            case IMPORTED -> {
+                // Les lignes importées sont dans l'événement : pas de relecture en base
+                for (Employee employee : event.importedEmployees()) {
+                    if (isNewer(employee.getId(), version)) {
+                        put(employee.getId(), new Entry(employee, version));
+                    }
+                }
+            }
+        }
+    }
+
+    private void reload(long id, long version) {
+        List<Employee> rows = jdbcTemplate.query(SELECT + " WHERE id = ?", (resultSet, rowNum) -> employee(resultSet), id);
+        if (rows.isEmpty()) {
+            remove(id, version);
+        } else {
+            put(id, new Entry(rows.get(0), version));
+        }
+    }
+
+    private void advanceAppliedVersion() {
+        long version = appliedVersion;
+        while (!pending.isEmpty() && pending.first() <= version + 1) {
+            version = Math.max(version, pending.pollFirst());
+        }
+        if (version == appliedVersion) {
+            return;
+        }
+        appliedVersion = version;
+        // Aucun événement antérieur ne peut plus arriver : les suppressions n'ont plus à être retenues
+        while (!tombstones.isEmpty() && tombstones.peekFirst().eventVersion() <= version) {
+            Tombstone tombstone = tombstones.pollFirst();
+            Entry entry = entry(tombstone.id());
+            if (entry != null && entry.employee() == null && entry.eventVersion() == tombstone.eventVersion()) {
+                long stamp = lock.writeLock();
+                try {
+                    employees.remove(tombstone.id());
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        }
+    }
+
+    // Lectures de l'écrivain : pas de verrou, les écritures passent toutes par writeMonitor
+    private Entry entry(long id) {
+        return employees.get(id);
+    }
+
+    private boolean isNewer(long id, long version) {
+        Entry current = entry(id);
+        return current == null || current.eventVersion() < version;
+    }
+
+    private void put(long id, Entry entry) {
+        long stamp = lock.writeLock();
+        try {
+            employees.put(id, entry);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void remove(long id, long version) {
+        put(id, new Entry(null, version));
+        tombstones.addLast(new Tombstone(id, version));
+    }
+
+    private static Employee employee(ResultSet resultSet) throws SQLException {
+        Employee employee = new Employee();
+        employee.setId(resultSet.getLong("id"));
+        employee.setFirstName(resultSet.getString("first_name"));
+        employee.setLastName(resultSet.getString("last_name"));
+        employee.setMail(resultSet.getString("mail"));
+        employee.setVersion(resultSet.getLong("version"));
+        return employee;
+    }
+
+    private static Employee copy(Employee source) {
+        Employee employee = new Employee();
+        employee.setId(source.getId());
+        employee.setFirstName(source.getFirstName());
+        employee.setLastName(source.getLastName());
+        employee.setMail(source.getMail());
+        employee.setVersion(source.getVersion());
+        return employee;
+    }
+
+    private static void applyChanges(Employee employee, Map<String, Object> changes) {
+        if (changes.containsKey("firstName")) {
+            employee.setFirstName((String) changes.get("firstName"));
+        }
+        if (changes.containsKey("lastName")) {
+            employee.setLastName((String) changes.get("lastName"));
+        }
+        if (changes.containsKey("mail")) {
+            employee.setMail((String) changes.get("mail"));
+        }
+    }
+}
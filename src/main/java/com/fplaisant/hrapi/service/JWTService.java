@@ -1,9 +1,14 @@
 package com.fplaisant.hrapi.service;
 
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
@@ -11,26 +16,42 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.stereotype.Service;
 
+import com.fplaisant.configuration.TokenRevocationList;
+
 
+/**
+ * Jetons signés portant un identifiant ({@code jti}, pour la révocation) et les rôles de
+ * l'utilisateur ({@code roles}) : les décisions d'autorisation ne demandent aucune lecture
+ * des utilisateurs. L'instant d'émission exact ({@code iat_us}) situe le jeton par rapport à
+ * une révocation de l'utilisateur survenue dans la même seconde.
+ */
 @Service
 public class JWTService {
 
+    public static final String ROLES_CLAIM = "roles";
+
+    // En-tête immuable, identique pour tous les jetons
+    private static final JwsHeader JWS_HEADER = JwsHeader.with(MacAlgorithm.HS256).build();
 
     private JwtEncoder jwtEncoder;
+    private final Duration tokenValidity;
 
-    public JWTService(JwtEncoder jwtEncoder) {
+    public JWTService(JwtEncoder jwtEncoder, @Value("${hrapi.security.token-validity:1d}") Duration tokenValidity) {
         this.jwtEncoder = jwtEncoder;
+        this.tokenValidity = tokenValidity;
     }
 
     public String generateToken(Authentication authentication) {
-        Instant now = Instant.now();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
         JwtClaimsSet claims = JwtClaimsSet.builder()
                 .issuer("self")
+                .id(UUID.randomUUID().toString())
                 .issuedAt(now)
-                .expiresAt(now.plus(1, ChronoUnit.DAYS))
+                .claim(TokenRevocationList.ISSUED_AT_MICROS_CLAIM, ChronoUnit.MICROS.between(Instant.EPOCH, now))
+                .expiresAt(now.plus(tokenValidity))
                 .subject(authentication.getName())
+                .claim(ROLES_CLAIM, authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
                 .build();
-        JwtEncoderParameters jwtEncoderParameters = JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims);
-        return this.jwtEncoder.encode(jwtEncoderParameters).getTokenValue();
+        return this.jwtEncoder.encode(JwtEncoderParameters.from(JWS_HEADER, claims)).getTokenValue();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.fplaisant.hrapi.service;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage à adressage ouvert (sondage linéaire) indexée par des {@code long} non boxés :
+ * deux tableaux au lieu d'un objet Entry et d'un Long par employé.
+ *
+ * La clé 0 est réservée aux cases vides (les ids commencent à 1). Non thread-safe : un seul
+ * écrivain, et les lecteurs concurrents doivent valider leur lecture (voir {@link EmployeeView}).
+ * {@link #get(long)} ne lève pas d'exception et se termine même pendant une écriture concurrente.
+ */
+final class LongObjectMap<V> {
+
+    private static final long EMPTY = 0L;
+
+    // Clés et valeurs remplacées ensemble au redimensionnement : un lecteur voit toujours une paire cohérente
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    private Table table;
+    private int size;
+
+    LongObjectMap(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    // Taux de remplissage maximal de 1/2 : les sondages restent courts
+    static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Table current = table;
+        long[] keys = current.keys;
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long candidate = keys[index];
+            if (candidate == key) {
+                return (V) current.values[index];
+            }
+            if (candidate == EMPTY) {
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("La clé 0 est réservée");
+        }
+        if ((size + 1) * 2L > table.keys.length) {
+            resize(table.keys.length * 2);
+        }
+        long[] keys = table.keys;
+        Object[] values = table.values;
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        // Valeur avant clé : un lecteur qui trouve la clé trouve aussi la valeur
+        values[index] = value;
+        keys[index] = key;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        long[] keys = table.keys;
+        Object[] values = table.values;
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != key) {
+            if (keys[index] == EMPTY) {
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+        V previous = (V) values[index];
+        size--;
+        // Décalage arrière : pas de marqueur de suppression, les sondages suivants restent courts
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        return previous;
+    }
+
+    /**
+     * Clés présentes, dans l'ordre de la table.
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int count = 0;
+        for (long key : table.keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private void resize(int capacity) {
+        Table previous = table;
+        Table resized = new Table(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < previous.keys.length; i++) {
+            long key = previous.keys[i];
+            if (key != EMPTY) {
+                int index = hash(key) & mask;
+                while (resized.keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                resized.keys[index] = key;
+                resized.values[index] = previous.values[i];
+            }
+        }
+        table = resized;
+    }
+}
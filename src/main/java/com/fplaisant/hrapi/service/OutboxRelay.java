@@ -0,0 +1,215 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.OutboxEvent;
+import com.fplaisant.hrapi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Vide l'outbox vers Kafka par lots. Les envois d'un lot partent en parallèle (le producteur
+ * les regroupe selon linger.ms / batch.size), puis seuls les événements acquittés, dans l'ordre,
+ * sont supprimés. En cas d'échec le reste du lot est retenté au passage suivant : la livraison
+ * est "au moins une fois", les consommateurs dédoublonnent sur la version de l'événement.
+ * L'identifiant de trace de la requête d'origine est transmis dans l'en-tête {@value #TRACE_ID_HEADER},
+ * le format de la valeur ({@link EmployeeEventSerializer}) dans l'en-tête {@code contentType}.
+ * Les événements acquittés sont versés à l'historique ({@link EmployeeAuditService}) dans la
+ * transaction qui les supprime : chacun y figure une seule fois.
+ *
+ * Chaque nœud exécute le relais, mais un lot n'est traité que sous le verrou de la table
+ * {@code outbox_relay_lock}, pris dans la transaction du lot : un seul nœud publie à la fois,
+ * dans l'ordre de l'outbox, et les autres passent leur tour.
+ *
+ * Un événement que le sérialiseur refuse ne sera jamais publiable et bloquerait l'outbox : il est
+ * déplacé dans {@code employee_outbox_dead_letter} avec la cause, journalisé en erreur et compté
+ * par {@code hrapi.outbox.dead_letters}, sur lequel porte l'alerte.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final EmployeeEventSerializer eventSerializer;
+    private final MeterRegistry meterRegistry;
+    private final TransactionOperations transactionOperations;
+    private final EmployeeAuditService auditService;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    private final Timer batchTimer;
+    private final Counter relayedCounter;
+    private final Counter failureCounter;
+    private final Counter deadLetterCounter;
+    private volatile long lagMillis;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, byte[]> kafkaTemplate,
+                       EmployeeEventSerializer eventSerializer,
+                       MeterRegistry meterRegistry,
+                       TransactionOperations transactionOperations,
+                       EmployeeAuditService auditService,
+                       @Value("${hrapi.outbox.batch-size:500}") int batchSize,
+                       @Value("${hrapi.outbox.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.eventSerializer = eventSerializer;
+        this.meterRegistry = meterRegistry;
+        this.transactionOperations = transactionOperations;
+        this.auditService = auditService;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.batchTimer = Timer.builder("hrapi.outbox.batch").register(meterRegistry);
+        this.relayedCounter = Counter.builder("hrapi.outbox.relayed").register(meterRegistry);
+        this.failureCounter = Counter.builder("hrapi.outbox.failures").register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("hrapi.outbox.dead_letters")
+                .description("Outbox events that can never be published, moved to employee_outbox_dead_letter")
+                .register(meterRegistry);
+        Gauge.builder("hrapi.outbox.lag", this, relay -> relay.lagMillis / 1000.0)
+                .baseUnit("seconds")
+                .description("Age of the oldest event still waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${hrapi.outbox.linger-ms:50}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * Publie le lot le plus ancien de l'outbox, sous le verrou du relais.
+     *
+     * @return le nombre d'événements publiés et supprimés, 0 si un autre nœud relaie
+     */
+    public int relayBatch() {
+        Integer relayed = transactionOperations.execute(status -> {
+            if (outboxEventRepository.tryLockRelay().isEmpty()) {
+                return 0;
+            }
+            return relayLockedBatch();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    private int relayLockedBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findByOrderByIdAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            lagMillis = 0;
+            return 0;
+        }
+        lagMillis = Duration.between(batch.get(0).getCreatedAt(), Instant.now()).toMillis();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        Map<Long, Exception> unpublishable = new HashMap<>();
+        for (OutboxEvent event : batch) {
+            byte[] value;
+            try {
+                value = eventSerializer.toRecordValue(event.getPayload());
+            } catch (IOException | RuntimeException e) {
+                unpublishable.put(event.getId(), e);
+                futures.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            futures.add(send(event, value));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Outbox relay: batch starting at event {} not fully acknowledged", batch.get(0).getId(), e);
+        }
+
+        // On ne supprime que le préfixe acquitté (ou mis de côté) pour conserver l'ordre de publication
+        List<Long> removedIds = new ArrayList<>(batch.size());
+        List<OutboxEvent> sent = new ArrayList<>(batch.size());
+        Instant now = Instant.now();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            Exception cause = unpublishable.get(event.getId());
+            if (cause != null) {
+                deadLetter(event, cause, now);
+            } else {
+                CompletableFuture<?> future = futures.get(i);
+                if (!future.isDone() || future.isCompletedExceptionally()) {
+                    break;
+                }
+                sent.add(event);
+            }
+            removedIds.add(event.getId());
+        }
+        if (!removedIds.isEmpty()) {
+            auditService.record(sent);
+            outboxEventRepository.deleteByIds(removedIds);
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        relayedCounter.increment(sent.size());
+        if (removedIds.size() < batch.size()) {
+            failureCounter.increment(batch.size() - removedIds.size());
+        }
+        return removedIds.size();
+    }
+
+    private void deadLetter(OutboxEvent event, Exception cause, Instant now) {
+        log.error("Outbox relay: event {} cannot be serialized, moved to employee_outbox_dead_letter",
+                event.getId(), cause);
+        String error = String.valueOf(cause.getMessage());
+        outboxEventRepository.copyToDeadLetter(event.getId(),
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error, now);
+        deadLetterCounter.increment();
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(OutboxEvent event, byte[] value) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(), value);
+        record.headers().add(EmployeeEventSerializer.CONTENT_TYPE_HEADER,
+                eventSerializer.contentType().getBytes(StandardCharsets.UTF_8));
+        if (event.getTraceId() != null) {
+            record.headers().add(TRACE_ID_HEADER, event.getTraceId().getBytes(StandardCharsets.UTF_8));
+        }
+        DistributionSummary.builder("hrapi.kafka.payload.size")
+                .baseUnit("bytes")
+                .tag("topic", event.getTopic())
+                .register(meterRegistry)
+                .record(value.length);
+        long sendStart = System.nanoTime();
+        CompletableFuture<SendResult<String, byte[]>> future = kafkaTemplate.send(record);
+        future.whenComplete((result, exception) -> Timer.builder("hrapi.kafka.send")
+                .tag("topic", event.getTopic())
+                .tag("outcome", exception == null ? "success" : "failure")
+                .register(meterRegistry)
+                .record(System.nanoTime() - sendStart, TimeUnit.NANOSECONDS));
+        return future;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fplaisant.hrapi.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Chiffrement AES-GCM des mots de passe en clair inscrits dans le journal des écritures
+ * asynchrones, qui ne sont hachés qu'à l'application. Format : base64(nonce || chiffré).
+ */
+final class PasswordCipher {
+
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    PasswordCipher(byte[] key) {
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("La clé AES doit faire 16, 24 ou 32 octets");
+        }
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Clé aléatoire, perdue à l'arrêt : les mots de passe encore dans le journal deviennent illisibles.
+     */
+    static PasswordCipher withRandomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return new PasswordCipher(key);
+    }
+
+    String encrypt(String password) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, nonce));
+            byte[] encrypted = cipher.doFinal(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(NONCE_LENGTH + encrypted.length).put(nonce).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chiffrement du mot de passe impossible", e);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException si la valeur n'a pas été chiffrée avec cette clé
+     */
+    String decrypt(String encrypted) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(encrypted);
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, bytes, 0, NONCE_LENGTH));
+            return new String(cipher.doFinal(bytes, NONCE_LENGTH, bytes.length - NONCE_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Mot de passe du journal illisible avec la clé configurée", e);
+        }
+    }
+}
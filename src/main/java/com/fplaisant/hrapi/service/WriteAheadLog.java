@@ -0,0 +1,324 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.WriteOperation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal d'écritures sur disque, en segments de taille fixe projetés en mémoire
+ * ({@code wal-<premier id>.log}). Chaque enregistrement est {@code [longueur][CRC32][opération]} :
+ * au redémarrage, la lecture s'arrête au premier enregistrement incomplet ou corrompu.
+ *
+ * Les écritures en mémoire projetée survivent à un arrêt brutal du processus (le noyau garde les
+ * pages) ; {@code force} ajoute un fsync par enregistrement pour survivre aussi à une coupure.
+ *
+ * Plusieurs threads ajoutent, un seul lit ({@link #poll(int)}, {@link #release(long)}) : la
+ * position écrite de chaque segment est publiée par un champ volatile après l'écriture.
+ */
+final class WriteAheadLog {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Longueur et CRC32 de l'enregistrement
+    private static final int HEADER_SIZE = 8;
+
+    private static final class Segment {
+        final Path path;
+        final long firstId;
+        final MappedByteBuffer buffer;
+        volatile int limit;
+        volatile long lastId;
+        volatile Segment next;
+
+        Segment(Path path, long firstId, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstId = firstId;
+            this.buffer = buffer;
+            this.lastId = firstId - 1;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean force;
+
+    // Protégés par this
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Segment tail;
+    private long nextId;
+
+    private volatile long lastId;
+
+    // Curseur du lecteur unique
+    private Segment readSegment;
+    private int readPosition;
+    private final long recoveredThrough;
+
+    private WriteAheadLog(Path directory, int segmentSize, boolean force, long appliedId) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.force = force;
+        this.recoveredThrough = appliedId;
+    }
+
+    /**
+     * Ouvre le journal de {@code directory}. Les opérations d'id supérieur à {@code appliedId}
+     * encore présentes seront rendues par {@link #poll(int)}, dans l'ordre.
+     */
+    static WriteAheadLog open(Path directory, int segmentSize, boolean force, long appliedId) throws IOException {
+        WriteAheadLog log = new WriteAheadLog(directory, segmentSize, force, appliedId);
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+        long maxId = recoveredThrough;
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long firstId = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(path, firstId, map(path));
+            scan(segment);
+            segments.add(segment);
+            maxId = Math.max(maxId, segment.lastId);
+        }
+        // Les segments déjà appliqués (sauf le dernier, où l'on continue d'écrire) sont supprimés
+        while (segments.size() > 1 && segments.peekFirst().lastId <= recoveredThrough) {
+            Files.deleteIfExists(segments.pollFirst().path);
+        }
+        nextId = maxId + 1;
+        lastId = maxId;
+        if (segments.isEmpty()) {
+            segments.add(newSegment(nextId));
+        } else {
+            Segment previous = null;
+            for (Segment segment : segments) {
+                if (previous != null) {
+                    previous.next = segment;
+                }
+                previous = segment;
+            }
+        }
+        tail = segments.peekLast();
+        readSegment = segments.peekFirst();
+    }
+
+    // Position de fin : dernier enregistrement complet. Les octets d'un enregistrement tronqué
+    // qui suivent sont réécrits par les ajouts suivants ; jusque-là le CRC les écarte.
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        CRC32 crc = new CRC32();
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > segmentSize - position - HEADER_SIZE) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(position + HEADER_SIZE, body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            segment.lastId = ByteBuffer.wrap(body).getLong(0);
+            position += HEADER_SIZE + length;
+        }
+        segment.limit = position;
+    }
+
+    /**
+     * Inscrit l'opération et lui attribue son id.
+     */
+    long append(WriteOperation operation) throws IOException {
+        // Encodage hors verrou, l'id (8 premiers octets) est écrit une fois attribué
+        byte[] body = encode(operation);
+        if (HEADER_SIZE + body.length > segmentSize) {
+            throw new IllegalArgumentException("Opération trop grande pour un segment du journal");
+        }
+        long id = write(body);
+        operation.setId(id);
+        return id;
+    }
+
+    private synchronized long write(byte[] body) throws IOException {
+        long id = nextId;
+        ByteBuffer.wrap(body).putLong(0, id);
+        int recordSize = HEADER_SIZE + body.length;
+        if (tail.limit + recordSize > segmentSize) {
+            Segment next = newSegment(id);
+            segments.add(next);
+            tail.next = next;
+            tail = next;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        MappedByteBuffer buffer = tail.buffer;
+        int position = tail.limit;
+        buffer.put(position + HEADER_SIZE, body);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        // Longueur en dernier : c'est elle qui rend l'enregistrement lisible
+        buffer.putInt(position, body.length);
+        if (force) {
+            buffer.force(position, recordSize);
+        }
+        nextId = id + 1;
+        tail.lastId = id;
+        tail.limit = position + recordSize;
+        lastId = id;
+        return id;
+    }
+
+    /**
+     * Au plus {@code max} opérations suivantes, dans l'ordre des ids. Réservé au lecteur unique.
+     */
+    List<WriteOperation> poll(int max) {
+        List<WriteOperation> operations = new ArrayList<>();
+        while (operations.size() < max) {
+            if (readPosition >= readSegment.limit) {
+                Segment next = readSegment.next;
+                if (next == null) {
+                    break;
+                }
+                // next est publié après la dernière position du segment : relue, elle est définitive
+                if (readPosition >= readSegment.limit) {
+                    readSegment = next;
+                    readPosition = 0;
+                }
+                continue;
+            }
+            MappedByteBuffer buffer = readSegment.buffer;
+            int length = buffer.getInt(readPosition);
+            byte[] body = new byte[length];
+            buffer.get(readPosition + HEADER_SIZE, body);
+            readPosition += HEADER_SIZE + length;
+            WriteOperation operation = decode(body);
+            if (operation.getId() > recoveredThrough) {
+                operations.add(operation);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Supprime les segments dont toutes les opérations sont appliquées. Réservé au lecteur unique.
+     */
+    synchronized void release(long appliedId) throws IOException {
+        while (segments.size() > 1) {
+            Segment head = segments.peekFirst();
+            if (head == readSegment || head.lastId > appliedId) {
+                break;
+            }
+            segments.pollFirst();
+            // La projection est libérée par le GC, la suppression du fichier n'en dépend pas
+            Files.deleteIfExists(head.path);
+        }
+    }
+
+    long lastId() {
+        return lastId;
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    private Segment newSegment(long firstId) throws IOException {
+        Path path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, firstId, SEGMENT_SUFFIX));
+        return new Segment(path, firstId, map(path));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    static byte[] encode(WriteOperation operation) {
+        Employee employee = operation.getEmployee();
+        byte[][] strings = employee == null ? new byte[0][] : new byte[][]{
+                utf8(employee.getFirstName()), utf8(employee.getLastName()),
+                utf8(employee.getMail()), utf8(employee.getPassword())};
+        byte[] actor = utf8(operation.getActor());
+        int size = 8 + 8 + 1 + 8 + 4 + (actor == null ? 0 : actor.length) + 1;
+        for (byte[] string : strings) {
+            size += 4 + (string == null ? 0 : string.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(operation.getId());
+        buffer.putLong(operation.getTimestamp());
+        buffer.put((byte) operation.getType().ordinal());
+        buffer.putLong(operation.getEmployeeId() == null ? 0L : operation.getEmployeeId());
+        writeString(buffer, actor);
+        buffer.put((byte) (employee == null ? 0 : 1));
+        for (byte[] string : strings) {
+            writeString(buffer, string);
+        }
+        return buffer.array();
+    }
+
+    static WriteOperation decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        WriteOperation operation = new WriteOperation();
+        operation.setId(buffer.getLong());
+        operation.setTimestamp(buffer.getLong());
+        operation.setType(WriteOperation.Type.values()[buffer.get()]);
+        long employeeId = buffer.getLong();
+        operation.setEmployeeId(employeeId == 0L ? null : employeeId);
+        operation.setActor(readString(buffer));
+        if (buffer.get() == 1) {
+            Employee employee = new Employee();
+            employee.setFirstName(readString(buffer));
+            employee.setLastName(readString(buffer));
+            employee.setMail(readString(buffer));
+            employee.setPassword(readString(buffer));
+            operation.setEmployee(employee);
+        }
+        return operation;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(string.length);
+            buffer.put(string);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
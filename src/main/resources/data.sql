@@ -1,14 +1,164 @@
-DROP TABLE IF EXISTS employees;
+-- Schéma H2 du profil par défaut (PostgreSQL : db/migration/postgresql), rejoué à chaque démarrage.
+-- Les tables ne sont créées que si elles n'existent pas : outbox, journal des écritures asynchrones,
+-- historique et versions d'événements survivent aux redémarrages avec les employés. Les données de
+-- démonstration ne sont insérées qu'à la création de la base, tant que employee_version est vide
+-- (sa ligne est insérée en dernier). Chaque instruction doit pouvoir être rejouée : une base créée
+-- par une version précédente est mise à niveau par les ALTER ... IF NOT EXISTS qui suivent ses tables.
 
-CREATE TABLE employees (
+CREATE TABLE IF NOT EXISTS employee_version (
+  version BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS employees (
   id INT AUTO_INCREMENT  PRIMARY KEY,
-  first_name VARCHAR(250) NOT NULL,
-  last_name VARCHAR(250) NOT NULL,
-  mail VARCHAR(250) NOT NULL,
-  password VARCHAR(250) NOT NULL
+  first_name VARCHAR_IGNORECASE(250) NOT NULL,
+  last_name VARCHAR_IGNORECASE(250) NOT NULL,
+  mail VARCHAR_IGNORECASE(250) NOT NULL,
+  password VARCHAR(250) NOT NULL,
+  version BIGINT DEFAULT 0 NOT NULL
+);
+
+-- Mise à niveau d'une base de la première version (sans version ni colonnes insensibles à la casse,
+-- mots de passe en clair sans préfixe d'encodage, hachés ensuite au démarrage) : sans effet sur une
+-- base à jour
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE employees ALTER COLUMN first_name SET DATA TYPE VARCHAR_IGNORECASE(250);
+ALTER TABLE employees ALTER COLUMN last_name SET DATA TYPE VARCHAR_IGNORECASE(250);
+ALTER TABLE employees ALTER COLUMN mail SET DATA TYPE VARCHAR_IGNORECASE(250);
+UPDATE employees SET password = '{noop}' || password WHERE password NOT LIKE '{%}%';
+
+-- Recherche par préfixe (LIKE 'abc%') et tri : colonnes insensibles à la casse pour que l'index serve
+CREATE INDEX IF NOT EXISTS idx_employees_last_name ON employees (last_name, first_name);
+CREATE INDEX IF NOT EXISTS idx_employees_first_name ON employees (first_name);
+CREATE INDEX IF NOT EXISTS idx_employees_mail ON employees (mail);
+
+-- Mots de passe de démonstration (laurent, sophie, agathe) déjà hachés : les employés ne se
+-- connectent pas, rien ne les ré-encoderait
+INSERT INTO employees (first_name, last_name, mail, password)
+SELECT * FROM (VALUES
+  ('Laurent', 'GINA', 'laurentgina@mail.com', '{bcrypt}$2a$10$dCkIkkgFv5ilU2NQ5xGxR.fKqNNZTbcRNY5EqFMXMwQGsCMbUpmAO'),
+  ('Sophie', 'FONCEK', 'sophiefoncek@mail.com', '{bcrypt}$2a$10$GmZj0oA8Xd.Sd4Lq7eo/uO/kcynD8dmCccMh68C6m6KQy4.BwtIya'),
+  ('Agathe', 'FEELING', 'agathefeeling@mail.com', '{bcrypt}$2a$10$qc8iCkNHZ.bCQxXZq8vQ..Kb2SaffoTtcarYwq7ZC1bZmxKbWwPTi'))
+WHERE NOT EXISTS (SELECT 1 FROM employee_version) AND NOT EXISTS (SELECT 1 FROM employees);
+
+
+-- Evénements pas encore relayés vers Kafka
+CREATE TABLE IF NOT EXISTS employee_outbox (
+  id BIGINT AUTO_INCREMENT  PRIMARY KEY,
+  topic VARCHAR(250) NOT NULL,
+  message_key VARCHAR(250),
+  payload CLOB NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  trace_id VARCHAR(64),
+  actor VARCHAR(250)
+);
+
+-- Evénements que le relais n'a pas pu sérialiser, retirés de l'outbox pour ne pas la bloquer
+CREATE TABLE IF NOT EXISTS employee_outbox_dead_letter (
+  id BIGINT PRIMARY KEY,
+  topic VARCHAR(250) NOT NULL,
+  message_key VARCHAR(250),
+  payload CLOB NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  trace_id VARCHAR(64),
+  actor VARCHAR(250),
+  error VARCHAR(1000),
+  failed_at TIMESTAMP NOT NULL
+);
+
+-- Une seule ligne, verrouillée par le relais de l'outbox le temps d'un lot : un seul nœud publie à la fois
+CREATE TABLE IF NOT EXISTS outbox_relay_lock (
+  id INT PRIMARY KEY
+);
+
+INSERT INTO outbox_relay_lock (id) SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM outbox_relay_lock);
+
+
+-- Résultat des écritures asynchrones, inséré dans la transaction qui les applique :
+-- le plus grand id est le point de reprise du journal au redémarrage, la table est donc
+-- conservée d'un démarrage à l'autre comme le journal
+CREATE TABLE IF NOT EXISTS write_operation (
+  id BIGINT PRIMARY KEY,
+  status VARCHAR(16) NOT NULL,
+  employee_id BIGINT,
+  error VARCHAR(1000),
+  completed_at TIMESTAMP NOT NULL
 );
 
-INSERT INTO employees (first_name, last_name, mail, password) VALUES
-  ('Laurent', 'GINA', 'laurentgina@mail.com', 'laurent'),
-  ('Sophie', 'FONCEK', 'sophiefoncek@mail.com', 'sophie'),
-  ('Agathe', 'FEELING', 'agathefeeling@mail.com', 'agathe');
\ No newline at end of file
+
+-- Historique des modifications, alimenté par le relais de l'outbox (jamais modifié) :
+-- changes contient les champs modifiés en JSON, sans le mot de passe
+CREATE TABLE IF NOT EXISTS employee_history (
+  id BIGINT AUTO_INCREMENT  PRIMARY KEY,
+  event_version BIGINT NOT NULL,
+  employee_id BIGINT NOT NULL,
+  op VARCHAR(16) NOT NULL,
+  changes VARCHAR(4000),
+  employee_version BIGINT,
+  actor VARCHAR(250),
+  trace_id VARCHAR(64),
+  changed_at TIMESTAMP NOT NULL
+);
+
+-- Un événement n'est versé qu'une fois par employé, même relayé deux fois
+DROP INDEX IF EXISTS idx_employee_history_employee;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_employee_history_event ON employee_history (employee_id, event_version);
+CREATE INDEX IF NOT EXISTS idx_employee_history_changed_at ON employee_history (changed_at);
+
+-- Etat complet d'un employé après l'événement event_version : une requête "état à l'instant T"
+-- part du dernier snapshot et ne rejoue que les modifications suivantes
+CREATE TABLE IF NOT EXISTS employee_snapshot (
+  employee_id BIGINT NOT NULL,
+  event_version BIGINT NOT NULL,
+  changed_at TIMESTAMP NOT NULL,
+  deleted BOOLEAN NOT NULL,
+  first_name VARCHAR(250),
+  last_name VARCHAR(250),
+  mail VARCHAR(250),
+  employee_version BIGINT,
+  PRIMARY KEY (employee_id, event_version)
+);
+
+-- Utilisateurs et rôles (schéma standard de JdbcUserDetailsManager). Les mots de passe {noop}
+-- sont ré-encodés en bcrypt à la première connexion
+CREATE TABLE IF NOT EXISTS users (
+  username VARCHAR_IGNORECASE(50) NOT NULL PRIMARY KEY,
+  password VARCHAR(500) NOT NULL,
+  enabled BOOLEAN NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS authorities (
+  username VARCHAR_IGNORECASE(50) NOT NULL,
+  authority VARCHAR(50) NOT NULL,
+  CONSTRAINT fk_authorities_users FOREIGN KEY (username) REFERENCES users (username)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ix_auth_username ON authorities (username, authority);
+
+INSERT INTO users (username, password, enabled)
+SELECT * FROM (VALUES
+  ('user', '{noop}password', TRUE),
+  ('admin', '{noop}admin-password', TRUE))
+WHERE NOT EXISTS (SELECT 1 FROM employee_version);
+
+INSERT INTO authorities (username, authority)
+SELECT * FROM (VALUES
+  ('user', 'ROLE_USER'),
+  ('admin', 'ROLE_USER'),
+  ('admin', 'ROLE_ADMIN'))
+WHERE NOT EXISTS (SELECT 1 FROM employee_version);
+
+-- Jetons révoqués (jti) ou utilisateurs dont les jetons émis avant issued_before sont révoqués,
+-- gardés jusqu'à l'expiration des jetons visés
+CREATE TABLE IF NOT EXISTS token_revocation (
+  id BIGINT AUTO_INCREMENT  PRIMARY KEY,
+  jti VARCHAR(64),
+  username VARCHAR(50),
+  issued_before TIMESTAMP,
+  expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocation_expires_at ON token_revocation (expires_at);
+
+-- En dernier : marque la base comme initialisée
+INSERT INTO employee_version (version) SELECT 0 WHERE NOT EXISTS (SELECT 1 FROM employee_version);
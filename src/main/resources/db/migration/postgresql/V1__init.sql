@@ -0,0 +1,98 @@
+-- Schéma PostgreSQL du profil prod, appliqué par Flyway au démarrage. Equivalent de data.sql
+-- (réservé à H2), sans les données de démonstration : les comptes sont créés par l'exploitant,
+-- avec un mot de passe {bcrypt}.
+
+-- Colonnes insensibles à la casse comme VARCHAR_IGNORECASE sous H2 (égalité, LIKE et tri)
+CREATE EXTENSION IF NOT EXISTS citext;
+
+CREATE TABLE employees (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  first_name CITEXT NOT NULL,
+  last_name CITEXT NOT NULL,
+  mail CITEXT NOT NULL,
+  password VARCHAR(250) NOT NULL,
+  version BIGINT DEFAULT 0 NOT NULL,
+  CONSTRAINT ck_employees_first_name CHECK (length(first_name) <= 250),
+  CONSTRAINT ck_employees_last_name CHECK (length(last_name) <= 250),
+  CONSTRAINT ck_employees_mail CHECK (length(mail) <= 250)
+);
+
+CREATE INDEX idx_employees_last_name ON employees (last_name, first_name);
+CREATE INDEX idx_employees_first_name ON employees (first_name);
+CREATE INDEX idx_employees_mail ON employees (mail);
+
+CREATE TABLE employee_version (
+  version BIGINT NOT NULL
+);
+
+INSERT INTO employee_version (version) VALUES (0);
+
+CREATE TABLE employee_outbox (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  topic VARCHAR(250) NOT NULL,
+  message_key VARCHAR(250),
+  payload TEXT NOT NULL,
+  created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  trace_id VARCHAR(64),
+  actor VARCHAR(250)
+);
+
+CREATE TABLE write_operation (
+  id BIGINT PRIMARY KEY,
+  status VARCHAR(16) NOT NULL,
+  employee_id BIGINT,
+  error VARCHAR(1000),
+  completed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE employee_history (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  event_version BIGINT NOT NULL,
+  employee_id BIGINT NOT NULL,
+  op VARCHAR(16) NOT NULL,
+  changes VARCHAR(4000),
+  employee_version BIGINT,
+  actor VARCHAR(250),
+  trace_id VARCHAR(64),
+  changed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_employee_history_employee ON employee_history (employee_id, event_version);
+CREATE INDEX idx_employee_history_changed_at ON employee_history (changed_at);
+
+CREATE TABLE employee_snapshot (
+  employee_id BIGINT NOT NULL,
+  event_version BIGINT NOT NULL,
+  changed_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  deleted BOOLEAN NOT NULL,
+  first_name VARCHAR(250),
+  last_name VARCHAR(250),
+  mail VARCHAR(250),
+  employee_version BIGINT,
+  PRIMARY KEY (employee_id, event_version)
+);
+
+CREATE TABLE users (
+  username CITEXT NOT NULL PRIMARY KEY,
+  password VARCHAR(500) NOT NULL,
+  enabled BOOLEAN NOT NULL,
+  CONSTRAINT ck_users_username CHECK (length(username) <= 50)
+);
+
+CREATE TABLE authorities (
+  username CITEXT NOT NULL,
+  authority VARCHAR(50) NOT NULL,
+  CONSTRAINT fk_authorities_users FOREIGN KEY (username) REFERENCES users (username)
+);
+
+CREATE UNIQUE INDEX ix_auth_username ON authorities (username, authority);
+
+CREATE TABLE token_revocation (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  jti VARCHAR(64),
+  username VARCHAR(50),
+  issued_before TIMESTAMP WITH TIME ZONE,
+  expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_token_revocation_expires_at ON token_revocation (expires_at);
@@ -0,0 +1,11 @@
+-- Verrou du relais de l'outbox : une seule ligne, verrouillée le temps d'un lot (FOR UPDATE
+-- SKIP LOCKED), pour qu'un seul nœud publie à la fois.
+CREATE TABLE outbox_relay_lock (
+  id INT PRIMARY KEY
+);
+
+INSERT INTO outbox_relay_lock (id) VALUES (1);
+
+-- Un événement n'est versé qu'une fois par employé dans l'historique
+DROP INDEX idx_employee_history_employee;
+CREATE UNIQUE INDEX uq_employee_history_event ON employee_history (employee_id, event_version);
@@ -0,0 +1,13 @@
+-- Evénements que le relais de l'outbox n'a pas pu sérialiser, retirés de l'outbox pour ne pas la
+-- bloquer (alerte sur hrapi.outbox.dead_letters)
+CREATE TABLE employee_outbox_dead_letter (
+  id BIGINT PRIMARY KEY,
+  topic VARCHAR(250) NOT NULL,
+  message_key VARCHAR(250),
+  payload TEXT NOT NULL,
+  created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  trace_id VARCHAR(64),
+  actor VARCHAR(250),
+  error VARCHAR(1000),
+  failed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,6 @@
+-- Recherche par préfixe : LIKE 'abc%' sur une colonne CITEXT ne peut pas utiliser son index btree.
+-- Avec hrapi.search.lower-case-prefix=true (profil prod), les préfixes sont cherchés par
+-- lower(col) LIKE 'abc%', qui utilise ces index d'expression.
+CREATE INDEX idx_employees_last_name_lower ON employees (lower(last_name) text_pattern_ops);
+CREATE INDEX idx_employees_first_name_lower ON employees (lower(first_name) text_pattern_ops);
+CREATE INDEX idx_employees_mail_lower ON employees (lower(mail) text_pattern_ops);
@@ -0,0 +1,105 @@
+package com.fplaisant.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CachingJwtDecoder.
+ *
+ * Verifies that a reused token is verified once, that a token sharing a
+ * signature with a cached one is still verified, that invalid or
+ * expired tokens are not served from the cache and that revoked tokens
+ * are rejected.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private JwtDecoder delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenRevocationList revocationList;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        revocationList = new TokenRevocationList();
+        decoder = new CachingJwtDecoder(delegate, 100, Duration.ofMinutes(10), revocationList, meterRegistry);
+    }
+
+    private Jwt createJwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject("user")
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Test
+    void shouldDecodeReusedTokenOnce() {
+        Jwt jwt = createJwt(TOKEN, Instant.now().plusSeconds(3600));
+        when(delegate.decode(TOKEN)).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode(TOKEN));
+        assertSame(jwt, decoder.decode(TOKEN));
+
+        verify(delegate, times(1)).decode(TOKEN);
+        assertEquals(1, meterRegistry.timer("hrapi.jwt.decode", "cache", "hit").count());
+        assertEquals(1, meterRegistry.timer("hrapi.jwt.decode", "cache", "miss").count());
+    }
+
+    @Test
+    void shouldVerifyTokenWithSameSignatureButOtherPayload() {
+        String forged = "header.forged.signature";
+        when(delegate.decode(TOKEN)).thenReturn(createJwt(TOKEN, Instant.now().plusSeconds(3600)));
+        when(delegate.decode(forged)).thenThrow(new BadJwtException("bad signature"));
+
+        decoder.decode(TOKEN);
+
+        assertThrows(BadJwtException.class, () -> decoder.decode(forged));
+    }
+
+    @Test
+    void shouldNotServeExpiredToken() {
+        when(delegate.decode(TOKEN)).thenReturn(createJwt(TOKEN, Instant.now().minusSeconds(1)));
+
+        decoder.decode(TOKEN);
+        decoder.decode(TOKEN);
+
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    void shouldRejectRevokedTokenEvenWhenCached() {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        Jwt jwt = Jwt.withTokenValue(TOKEN)
+                .header("alg", "HS256")
+                .subject("user")
+                .jti("token-1")
+                .expiresAt(expiresAt)
+                .build();
+        when(delegate.decode(TOKEN)).thenReturn(jwt);
+        decoder.decode(TOKEN);
+
+        revocationList.revokeToken("token-1", expiresAt);
+
+        assertThrows(BadJwtException.class, () -> decoder.decode(TOKEN));
+        verify(delegate, times(1)).decode(TOKEN);
+        assertEquals(1, meterRegistry.counter("hrapi.jwt.revoked").count());
+    }
+}
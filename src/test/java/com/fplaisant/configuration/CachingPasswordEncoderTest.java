@@ -0,0 +1,64 @@
+package com.fplaisant.configuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CachingPasswordEncoder.
+ *
+ * Verifies that successful verifications are served from the cache while
+ * failed ones always reach the delegate encoder.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingPasswordEncoderTest {
+    private static final String HASH = "{bcrypt}$2a$10$hash";
+
+    @Mock
+    private PasswordEncoder delegate;
+
+    private CachingPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new CachingPasswordEncoder(delegate, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void shouldVerifyOnceThenServeFromCache() {
+        when(delegate.matches("password", HASH)).thenReturn(true);
+
+        assertTrue(encoder.matches("password", HASH));
+        assertTrue(encoder.matches("password", HASH));
+
+        verify(delegate, times(1)).matches("password", HASH);
+    }
+
+    @Test
+    void shouldNeverCacheFailedVerification() {
+        when(delegate.matches("wrong", HASH)).thenReturn(false);
+
+        assertFalse(encoder.matches("wrong", HASH));
+        assertFalse(encoder.matches("wrong", HASH));
+
+        verify(delegate, times(2)).matches("wrong", HASH);
+    }
+
+    @Test
+    void shouldVerifyAgainWhenHashChanges() {
+        when(delegate.matches(eq("password"), anyString())).thenReturn(true);
+
+        encoder.matches("password", HASH);
+        encoder.matches("password", HASH + "new");
+
+        verify(delegate, times(2)).matches(eq("password"), anyString());
+    }
+}
@@ -0,0 +1,107 @@
+package com.fplaisant.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CachingUserDetailsManager against an in-memory H2 database
+ * built from data.sql.
+ *
+ * Verifies that users and roles are served from the cache, that the cached
+ * instance keeps its password once a copy is erased, that password upgrades
+ * are stored and evicted, and that user changes revoke the user's tokens.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingUserDetailsManagerTest {
+
+    @Mock
+    private TokenRevocationStore revocationStore;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private CachingUserDetailsManager manager;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("data.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        manager = new CachingUserDetailsManager(database, revocationStore, Duration.ofMinutes(5), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static Set<String> roles(UserDetails user) {
+        return user.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+
+    @Test
+    void shouldLoadUserWithRolesFromCache() {
+        UserDetails admin = manager.loadUserByUsername("admin");
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), roles(admin));
+
+        // Plus en base mais toujours en cache
+        jdbcTemplate.update("DELETE FROM authorities WHERE username = 'admin'");
+        jdbcTemplate.update("DELETE FROM users WHERE username = 'admin'");
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), roles(manager.loadUserByUsername("admin")));
+    }
+
+    @Test
+    void shouldKeepCachedPasswordWhenCopyIsErased() {
+        User user = (User) manager.loadUserByUsername("user");
+        user.eraseCredentials();
+
+        assertEquals("{noop}password", manager.loadUserByUsername("user").getPassword());
+    }
+
+    @Test
+    void shouldStoreUpgradedPasswordAndEvict() {
+        UserDetails user = manager.loadUserByUsername("user");
+
+        UserDetails upgraded = manager.updatePassword(user, "{bcrypt}hash");
+
+        assertEquals("{bcrypt}hash", upgraded.getPassword());
+        assertEquals("{bcrypt}hash", manager.loadUserByUsername("user").getPassword());
+        verifyNoInteractions(revocationStore);
+    }
+
+    @Test
+    void shouldEvictAndRevokeTokensOnUserChange() {
+        manager.loadUserByUsername("user");
+
+        manager.updateUser(User.withUsername("user").password("{noop}password").roles("USER", "ADMIN").build());
+
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), roles(manager.loadUserByUsername("user")));
+        verify(revocationStore).revokeUser("user");
+
+        manager.deleteUser("user");
+
+        assertThrows(UsernameNotFoundException.class, () -> manager.loadUserByUsername("user"));
+        verify(revocationStore, times(2)).revokeUser("user");
+    }
+}
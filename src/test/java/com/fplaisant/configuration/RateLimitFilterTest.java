@@ -0,0 +1,103 @@
+package com.fplaisant.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RateLimitFilter.
+ *
+ * Verifies the 429 response with Retry-After, the separate budget of
+ * expensive routes, the per-user key and the rejection counter.
+ */
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private RateLimitFilter createFilter(RateLimitFilter.Scope scope) {
+        return new RateLimitFilter(scope,
+                new RateLimiter(1, 2, 100, Duration.ofMinutes(1)),
+                new RateLimiter(1, 1, 100, Duration.ofMinutes(1)),
+                Set.of("/token"), meterRegistry);
+    }
+
+    private MockHttpServletResponse perform(RateLimitFilter filter, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void shouldRejectWith429OnceBurstIsSpent() throws Exception {
+        RateLimitFilter filter = createFilter(RateLimitFilter.Scope.IP);
+
+        assertEquals(200, perform(filter, "/employees").getStatus());
+        assertEquals(200, perform(filter, "/employees").getStatus());
+        MockHttpServletResponse rejected = perform(filter, "/employees");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("hrapi.ratelimit.rejected")
+                .tags("scope", "ip", "route", "default").counter().count());
+    }
+
+    @Test
+    void shouldApplySeparateBudgetToExpensivePaths() throws Exception {
+        RateLimitFilter filter = createFilter(RateLimitFilter.Scope.IP);
+
+        assertEquals(200, perform(filter, "/token").getStatus());
+        assertEquals(429, perform(filter, "/token").getStatus());
+        assertEquals(200, perform(filter, "/employees").getStatus());
+        assertEquals(1.0, meterRegistry.get("hrapi.ratelimit.rejected")
+                .tags("scope", "ip", "route", "expensive").counter().count());
+    }
+
+    @Test
+    void shouldLimitPerAuthenticatedUser() throws Exception {
+        RateLimitFilter filter = createFilter(RateLimitFilter.Scope.PRINCIPAL);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+        perform(filter, "/employees");
+        perform(filter, "/employees");
+        assertEquals(429, perform(filter, "/employees").getStatus());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("bob", null, List.of()));
+        assertEquals(200, perform(filter, "/employees").getStatus());
+    }
+
+    @Test
+    void shouldLetUnauthenticatedRequestsThroughPrincipalScope() throws Exception {
+        RateLimitFilter filter = createFilter(RateLimitFilter.Scope.PRINCIPAL);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform(filter, "/employees").getStatus());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.fplaisant.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenRevocationList.
+ *
+ * Verifies revocation by token id and by user (tokens issued strictly
+ * before the revocation instant only, at microsecond precision), and that
+ * revocations are dropped once the tokens they target have expired.
+ */
+class TokenRevocationListTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    private final TokenRevocationList revocationList = new TokenRevocationList();
+
+    // Jeton tel qu'émis par JWTService : iat à la seconde, instant exact en microsecondes
+    private static Jwt jwt(String jti, String subject, Instant issuedAt) {
+        return Jwt.withTokenValue("token-" + jti)
+                .header("alg", "HS256")
+                .jti(jti)
+                .subject(subject)
+                .issuedAt(issuedAt.truncatedTo(ChronoUnit.SECONDS))
+                .claim(TokenRevocationList.ISSUED_AT_MICROS_CLAIM, ChronoUnit.MICROS.between(Instant.EPOCH, issuedAt))
+                .expiresAt(issuedAt.plusSeconds(3600))
+                .build();
+    }
+
+    private static Jwt jwtWithoutMicros(String jti, String subject, Instant issuedAt) {
+        return Jwt.withTokenValue("token-" + jti)
+                .header("alg", "HS256")
+                .jti(jti)
+                .subject(subject)
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(3600))
+                .build();
+    }
+
+    @Test
+    void shouldRevokeSingleToken() {
+        revocationList.revokeToken("a", NOW.plusSeconds(3600));
+
+        assertTrue(revocationList.isRevoked(jwt("a", "user", NOW)));
+        assertFalse(revocationList.isRevoked(jwt("b", "user", NOW)));
+    }
+
+    @Test
+    void shouldRevokeTokensIssuedBeforeUserRevocation() {
+        revocationList.revokeUser("user", NOW, NOW.plusSeconds(3600));
+
+        assertTrue(revocationList.isRevoked(jwt("a", "user", NOW.minusSeconds(60))));
+        assertTrue(revocationList.isRevoked(jwt("b", "user", NOW.minus(1, ChronoUnit.MICROS))));
+        assertFalse(revocationList.isRevoked(jwt("c", "user", NOW)));
+        assertFalse(revocationList.isRevoked(jwt("d", "user", NOW.plusSeconds(1))));
+        assertFalse(revocationList.isRevoked(jwt("e", "admin", NOW.minusSeconds(60))));
+    }
+
+    @Test
+    void shouldAcceptTokenIssuedInSameSecondAfterUserRevocation() {
+        Instant revokedAt = NOW.plusMillis(300);
+        revocationList.revokeUser("user", revokedAt, revokedAt.plusSeconds(3600));
+
+        assertTrue(revocationList.isRevoked(jwt("a", "user", NOW.plusMillis(100))));
+        assertFalse(revocationList.isRevoked(jwt("b", "user", NOW.plusMillis(700))));
+    }
+
+    @Test
+    void shouldRevokeTokenWithoutMicrosIssuedInRevocationSecond() {
+        revocationList.revokeUser("user", NOW.plusMillis(300), NOW.plusSeconds(3600));
+
+        // iat seul, à la seconde : dans le doute, le jeton est révoqué
+        assertTrue(revocationList.isRevoked(jwtWithoutMicros("a", "user", NOW)));
+        assertFalse(revocationList.isRevoked(jwtWithoutMicros("b", "user", NOW.plusSeconds(1))));
+    }
+
+    @Test
+    void shouldKeepLatestUserRevocation() {
+        revocationList.revokeUser("user", NOW, NOW.plusSeconds(3600));
+        revocationList.revokeUser("user", NOW.minusSeconds(600), NOW.plusSeconds(3000));
+
+        assertTrue(revocationList.isRevoked(jwt("a", "user", NOW.minusSeconds(60))));
+    }
+
+    @Test
+    void shouldPurgeExpiredRevocations() {
+        revocationList.revokeToken("a", NOW.plusSeconds(60));
+        revocationList.revokeUser("user", NOW, NOW.plusSeconds(3600));
+
+        revocationList.purgeExpired(NOW.plusSeconds(120));
+
+        assertEquals(1, revocationList.size());
+        assertFalse(revocationList.isRevoked(jwt("a", "admin", NOW)));
+    }
+}
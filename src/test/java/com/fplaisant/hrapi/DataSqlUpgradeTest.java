@@ -0,0 +1,64 @@
+package com.fplaisant.hrapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for data.sql replayed at each startup on an H2 database created by the
+ * first version of the application: the schema is upgraded in place, the demo
+ * rows are not inserted twice, and replaying the script again changes nothing.
+ */
+class DataSqlUpgradeTest {
+
+    private SimpleDriverDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // Schéma et données de la première version
+        jdbcTemplate.execute("CREATE TABLE employees (id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "first_name VARCHAR(250) NOT NULL, last_name VARCHAR(250) NOT NULL, "
+                + "mail VARCHAR(250) NOT NULL, password VARCHAR(250) NOT NULL)");
+        jdbcTemplate.execute("INSERT INTO employees (first_name, last_name, mail, password) VALUES "
+                + "('Laurent', 'GINA', 'laurentgina@mail.com', 'laurent'), "
+                + "('Sophie', 'FONCEK', 'sophiefoncek@mail.com', 'sophie'), "
+                + "('Agathe', 'FEELING', 'agathefeeling@mail.com', 'agathe')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    private void runDataSql() {
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(dataSource);
+    }
+
+    @Test
+    void shouldUpgradeFirstVersionDatabaseWithoutDuplicatingSeeds() {
+        runDataSql();
+        runDataSql();
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees", Integer.class));
+        assertEquals(List.of(0L), jdbcTemplate.queryForList("SELECT DISTINCT version FROM employees", Long.class));
+        assertEquals("{noop}laurent",
+                jdbcTemplate.queryForObject("SELECT password FROM employees WHERE mail = 'laurentgina@mail.com'", String.class));
+        // Colonnes devenues insensibles à la casse
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees WHERE last_name LIKE 'gin%'", Integer.class));
+        assertEquals(List.of(0L), jdbcTemplate.queryForList("SELECT version FROM employee_version", Long.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+}
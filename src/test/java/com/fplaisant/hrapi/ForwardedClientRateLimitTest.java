@@ -0,0 +1,47 @@
+package com.fplaisant.hrapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-IP rate limit behind a load balancer: on a real Tomcat with the default
+ * server.forward-headers-strategy, clients forwarded by a trusted proxy get their
+ * own budget instead of sharing the proxy's.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:hrapi-forwarded;DB_CLOSE_DELAY=-1",
+        "hrapi.ratelimit.ip.rate=0.01",
+        "hrapi.ratelimit.ip.burst=2"
+})
+class ForwardedClientRateLimitTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private int get(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/employees"))
+                .header("X-Forwarded-For", forwardedFor)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void shouldKeyOnForwardedClientAddress() throws Exception {
+        // Non authentifié : 401 tant que le budget n'est pas épuisé
+        assertEquals(401, get("203.0.113.1"));
+        assertEquals(401, get("203.0.113.1"));
+        assertEquals(429, get("203.0.113.1"));
+
+        assertEquals(401, get("203.0.113.2"));
+    }
+}
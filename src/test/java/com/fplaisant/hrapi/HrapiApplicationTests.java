@@ -0,0 +1,25 @@
+package com.fplaisant.hrapi;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Smoke test starting the full application context with its default configuration
+ * (in-memory database), so that wiring errors fail the build instead of the startup.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:hrapi-smoke;DB_CLOSE_DELAY=-1")
+class HrapiApplicationTests {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void contextLoads() {
+        assertNotNull(meterRegistry.find("hrapi.websocket.sessions").gauge());
+        assertEquals(2, meterRegistry.find("hrapi.websocket.queue.depth").gauges().size());
+    }
+}
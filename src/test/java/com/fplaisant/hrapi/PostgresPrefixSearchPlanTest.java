@@ -0,0 +1,69 @@
+package com.fplaisant.hrapi;
+
+import com.fplaisant.hrapi.repository.EmployeeSpecifications;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plans of the prod profile prefix search on an embedded PostgreSQL migrated
+ * by Flyway: lower(column) LIKE 'abc%' must use the text_pattern_ops indexes of
+ * the V4 migration, with the statements generated for hrapi.search.lower-case-prefix.
+ */
+class PostgresPrefixSearchPlanTest {
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.update("INSERT INTO employees (first_name, last_name, mail, password) "
+                + "SELECT 'First' || g, 'Last' || md5(g::text), 'user' || g || '@mail.com', 'x' "
+                + "FROM generate_series(1, 20000) g");
+        jdbcTemplate.update("INSERT INTO employees (first_name, last_name, mail, password) "
+                + "VALUES ('Laurent', 'GINA', 'laurentgina@mail.com', 'x')");
+        jdbcTemplate.execute("ANALYZE employees");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    // Même forme que les requêtes générées par Hibernate (paramètres liés, ESCAPE, LIMIT)
+    private static String plan(String column, String orderBy, String prefix) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN SELECT id, first_name, last_name, mail FROM employees "
+                        + "WHERE lower(" + column + ") LIKE ? ESCAPE '\\' ORDER BY " + orderBy + " LIMIT 10",
+                String.class, EmployeeSpecifications.lowerPrefixPattern(prefix));
+        return String.join("\n", lines);
+    }
+
+    @Test
+    void shouldUseLowerCaseIndexForPrefixes() {
+        assertTrue(plan("last_name", "last_name, first_name", "GI").contains("idx_employees_last_name_lower"));
+        assertTrue(plan("first_name", "first_name", "Laur").contains("idx_employees_first_name_lower"));
+        assertTrue(plan("mail", "mail", "laurent_").contains("idx_employees_mail_lower"));
+    }
+
+    @Test
+    void shouldMatchPrefixesIgnoringCase() {
+        assertEquals(List.of("GINA"), jdbcTemplate.queryForList(
+                "SELECT last_name FROM employees WHERE lower(last_name) LIKE ? ESCAPE '\\'",
+                String.class, EmployeeSpecifications.lowerPrefixPattern("gI")));
+    }
+}
@@ -0,0 +1,125 @@
+package com.fplaisant.hrapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConcurrencyLimitFilter.
+ *
+ * Verifies that permits are released after each request, that requests
+ * beyond the concurrency limit get a 503 with Retry-After without waiting
+ * for a slot, and that asynchronous responses keep their permit until completion.
+ */
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ConcurrencyLimitFilter createFilter() {
+        return new ConcurrencyLimitFilter(1, Duration.ofSeconds(1), meterRegistry);
+    }
+
+    private MockHttpServletResponse perform(ConcurrencyLimitFilter filter, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/employees"), response, chain);
+        return response;
+    }
+
+    @Test
+    void shouldReleasePermitAfterRequest() throws Exception {
+        ConcurrencyLimitFilter filter = createFilter();
+
+        assertEquals(200, perform(filter, new MockFilterChain()).getStatus());
+        assertEquals(200, perform(filter, new MockFilterChain()).getStatus());
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void shouldRejectWith503WhenSaturated() throws Exception {
+        ConcurrencyLimitFilter filter = createFilter();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return perform(filter, (request, response) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = perform(filter, new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("hrapi.admission.rejected").tag("reason", "saturated").counter().count());
+        release.countDown();
+        assertEquals(200, blocked.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void shouldRejectWithoutWaitingForPermit() throws Exception {
+        ConcurrencyLimitFilter filter = createFilter();
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/employees/export");
+        asyncRequest.setAsyncSupported(true);
+        filter.doFilter(asyncRequest, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        // Le thread appelant (un thread Tomcat en production) ne doit pas rester bloqué
+        long start = System.nanoTime();
+        MockHttpServletResponse rejected = perform(filter, new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void shouldKeepPermitUntilAsyncResponseCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = createFilter();
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/employees/export");
+        asyncRequest.setAsyncSupported(true);
+
+        filter.doFilter(asyncRequest, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        assertEquals(0, filter.availablePermits());
+        asyncRequest.getAsyncContext().complete();
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void shouldNotLimitActuatorEndpoints() throws Exception {
+        ConcurrencyLimitFilter filter = createFilter();
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/employees/export");
+        asyncRequest.setAsyncSupported(true);
+        filter.doFilter(asyncRequest, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+}
@@ -0,0 +1,49 @@
+package com.fplaisant.hrapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PreferRespondAsyncCondition.
+ *
+ * Verifies RFC 7240 parsing of the Prefer header: respond-async among other
+ * preferences, with values and parameters, on several header lines, and that
+ * quoted commas or look-alike names do not match.
+ */
+class PreferRespondAsyncConditionTest {
+
+    private static MockHttpServletRequest request(String... prefer) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/employee");
+        for (String value : prefer) {
+            request.addHeader(PreferRespondAsyncCondition.PREFER, value);
+        }
+        return request;
+    }
+
+    @Test
+    void shouldMatchRespondAsyncAmongOtherPreferences() {
+        assertTrue(PreferRespondAsyncCondition.prefersRespondAsync("respond-async"));
+        assertTrue(PreferRespondAsyncCondition.prefersRespondAsync("respond-async, wait=5"));
+        assertTrue(PreferRespondAsyncCondition.prefersRespondAsync("return=minimal, respond-async"));
+        assertTrue(PreferRespondAsyncCondition.prefersRespondAsync("return=minimal,Respond-Async ;foo=bar"));
+    }
+
+    @Test
+    void shouldNotMatchOtherOrQuotedPreferences() {
+        assertFalse(PreferRespondAsyncCondition.prefersRespondAsync("return=minimal"));
+        assertFalse(PreferRespondAsyncCondition.prefersRespondAsync("respond-asynchronously"));
+        assertFalse(PreferRespondAsyncCondition.prefersRespondAsync("foo=\"a, respond-async\""));
+        assertFalse(PreferRespondAsyncCondition.prefersRespondAsync(""));
+    }
+
+    @Test
+    void shouldReadEveryPreferHeaderLine() {
+        PreferRespondAsyncCondition condition = PreferRespondAsyncCondition.INSTANCE;
+
+        assertSame(condition, condition.getMatchingCondition(request("return=minimal", "respond-async, wait=5")));
+        assertNull(condition.getMatchingCondition(request("return=minimal")));
+        assertNull(condition.getMatchingCondition(request()));
+    }
+}
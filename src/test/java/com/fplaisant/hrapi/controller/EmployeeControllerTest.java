@@ -1,20 +1,26 @@
 package com.fplaisant.hrapi.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fplaisant.hrapi.model.Employee;
-import com.fplaisant.hrapi.service.EmployeeProducer;
+import com.fplaisant.hrapi.service.EmployeePatchService;
 import com.fplaisant.hrapi.service.EmployeeService;
+import com.fplaisant.hrapi.service.EmployeeVersionTracker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,13 +30,16 @@ import static org.mockito.Mockito.*;
  * Unit tests for the EmployeeController class.
  *
  * This test class verifies the behavior of methods within the EmployeeController
- * by mocking dependencies such as EmployeeService, ObjectMapper, and EmployeeProducer.
+ * by mocking dependencies such as EmployeeService and ObjectMapper.
  *
  * Tests include:
  * - Retrieving all employees.
+ * - Retrieving a keyset page of employees.
  * - Retrieving a specific employee by ID when the employee is found or not found.
+ * - Answering 304 when the If-None-Match ETag still matches.
  * - Adding a new employee with valid or invalid input.
  * - Updating an existing employee when the employee is found or not found.
+ * - Patching an employee with an If-Match version, including a version conflict.
  * - Deleting an employee.
  *
  * Mocks are used to isolate dependencies and to simulate expected behavior, enabling
@@ -39,17 +48,15 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class EmployeeControllerTest {
     private static final Long EXISTING_ID = 1L;
-    private static final String TOPIC_DELETE = "employee-delete";
-    private static final String TOPIC_ADD = "employee-add";
-    private static final String TOPIC_UPDATE = "employee-update";
-    private static final String MOCK_JSON = "mock-employee-list";
 
     @Mock
     private EmployeeService employeeService;
     @Mock
-    private ObjectMapper objectMapper;
+    private EmployeeVersionTracker employeeVersionTracker;
+    @Mock
+    private EmployeePatchService employeePatchService;
     @Mock
-    private EmployeeProducer employeeProducer;
+    private ObjectMapper objectMapper;
     @InjectMocks
     private EmployeeController employeeController;
 
@@ -60,6 +67,14 @@ class EmployeeControllerTest {
         return employee;
     }
 
+    private ServletWebRequest createRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/employees");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
     private Employee createValidEmployee() {
         Employee employee = createTestEmployee("Jean", "Dupont");
         employee.setMail("jean.dupont@email.com");
@@ -73,22 +88,49 @@ class EmployeeControllerTest {
                 createTestEmployee("Jean", "Dupont"),
                 createTestEmployee("Marie", "Curie")
         );
+        when(employeeVersionTracker.currentVersion()).thenReturn(7L);
         when(employeeService.getEmployees()).thenReturn(mockEmployees);
+        ServletWebRequest request = createRequest(null);
 
-        Iterable<Employee> result = employeeController.getEmployees();
+        Iterable<Employee> result = employeeController.getEmployees(request);
 
         assertNotNull(result);
         assertEquals(2, ((List<Employee>) result).size());
+        assertEquals("\"7\"", request.getResponse().getHeader("ETag"));
         verify(employeeService).getEmployees();
     }
 
+    @Test
+    void shouldReturnNotModifiedWhenCollectionVersionMatches() {
+        when(employeeVersionTracker.currentVersion()).thenReturn(7L);
+        ServletWebRequest request = createRequest("\"7\"");
+
+        assertNull(employeeController.getEmployees(request));
+
+        assertEquals(304, ((MockHttpServletResponse) request.getResponse()).getStatus());
+        verify(employeeService, never()).getEmployees();
+    }
+
+    @Test
+    void shouldReturnKeysetPage() {
+        Employee employee = createTestEmployee("Marie", "Curie");
+        employee.setId(EXISTING_ID + 1);
+        when(employeeService.getEmployeesAfter(EXISTING_ID, 50)).thenReturn(List.of(employee));
+
+        List<Employee> result = employeeController.getEmployeesPage(EXISTING_ID, 50, createRequest(null));
+
+        assertEquals(1, result.size());
+        assertEquals(EXISTING_ID + 1, result.get(0).getId());
+        verify(employeeService).getEmployeesAfter(EXISTING_ID, 50);
+    }
+
     @Test
     void shouldReturnEmployeeWhenExists() {
         Employee mockEmployee = createTestEmployee("Jean", "Dupont");
         mockEmployee.setId(EXISTING_ID);
         when(employeeService.getEmployee(EXISTING_ID)).thenReturn(Optional.of(mockEmployee));
 
-        Employee result = employeeController.getEmployee(EXISTING_ID);
+        Employee result = employeeController.getEmployee(EXISTING_ID, createRequest(null));
 
         assertNotNull(result);
         assertEquals(EXISTING_ID, result.getId());
@@ -97,26 +139,33 @@ class EmployeeControllerTest {
     }
 
     @Test
-    void shouldDeleteEmployeeAndNotifyKafka() throws JsonProcessingException {
-        when(objectMapper.writeValueAsString(any())).thenReturn(MOCK_JSON);
+    void shouldReturnNotModifiedWhenEmployeeVersionMatches() {
+        Employee mockEmployee = createTestEmployee("Jean", "Dupont");
+        mockEmployee.setId(EXISTING_ID);
+        mockEmployee.setVersion(3);
+        when(employeeService.getEmployee(EXISTING_ID)).thenReturn(Optional.of(mockEmployee));
+        ServletWebRequest request = createRequest("\"1-3\"");
+
+        assertNull(employeeController.getEmployee(EXISTING_ID, request));
+        assertEquals(304, ((MockHttpServletResponse) request.getResponse()).getStatus());
+    }
 
+    @Test
+    void shouldDeleteEmployee() {
         employeeController.deleteEmployee(EXISTING_ID);
 
-        verify(employeeService).deleteEmployee(EXISTING_ID);
-        verify(employeeProducer).sendEmployeeEvent(TOPIC_DELETE, MOCK_JSON);
+        verify(employeeService).removeEmployee(EXISTING_ID);
     }
 
     @Test
-    void shouldSaveValidEmployeeAndReturnSuccess() throws JsonProcessingException {
+    void shouldSaveValidEmployeeAndReturnSuccess() {
         Employee newEmployee = createValidEmployee();
-        when(employeeService.saveEmployee(any(Employee.class))).thenReturn(newEmployee);
-        when(objectMapper.writeValueAsString(any())).thenReturn(MOCK_JSON);
+        when(employeeService.createEmployee(any(Employee.class))).thenReturn(newEmployee);
 
         ResponseEntity<?> response = employeeController.addEmployee(newEmployee, mock(BindingResult.class));
 
         assertEquals(200, response.getStatusCode().value());
-        verify(employeeService).saveEmployee(any(Employee.class));
-        verify(employeeProducer).sendEmployeeEvent(TOPIC_ADD, MOCK_JSON);
+        verify(employeeService).createEmployee(any(Employee.class));
     }
 
     @Test
@@ -134,20 +183,54 @@ class EmployeeControllerTest {
     }
 
     @Test
-    void shouldUpdateExistingEmployeeAndNotifyKafka() throws JsonProcessingException {
-        Employee existingEmployee = createTestEmployee("Jean", "Dupont");
-        existingEmployee.setId(EXISTING_ID);
+    void shouldUpdateExistingEmployee() {
         Employee updatedEmployee = createTestEmployee("Paul", "Dupont");
+        updatedEmployee.setId(EXISTING_ID);
 
-        when(employeeService.getEmployee(EXISTING_ID)).thenReturn(Optional.of(existingEmployee));
-        when(employeeService.saveEmployee(any(Employee.class))).thenReturn(updatedEmployee);
-        when(objectMapper.writeValueAsString(any())).thenReturn(MOCK_JSON);
+        when(employeeService.updateEmployee(EXISTING_ID, updatedEmployee)).thenReturn(Optional.of(updatedEmployee));
 
         Employee result = employeeController.updateEmployee(EXISTING_ID, updatedEmployee);
 
         assertNotNull(result);
         assertEquals("Paul", result.getFirstName());
-        verify(employeeService).saveEmployee(any(Employee.class));
-        verify(employeeProducer).sendEmployeeEvent(TOPIC_UPDATE, MOCK_JSON);
+        verify(employeeService).updateEmployee(EXISTING_ID, updatedEmployee);
+    }
+
+    @Test
+    void shouldReturnNullWhenUpdatingMissingEmployee() {
+        Employee updatedEmployee = createTestEmployee("Paul", "Dupont");
+        when(employeeService.updateEmployee(EXISTING_ID, updatedEmployee)).thenReturn(Optional.empty());
+
+        assertNull(employeeController.updateEmployee(EXISTING_ID, updatedEmployee));
+    }
+
+    @Test
+    void shouldPatchEmployeeWithExpectedVersion() {
+        Map<String, Object> changes = Map.of("mail", "jean.dupont@email.com");
+        when(employeePatchService.validate(changes)).thenReturn(new ArrayList<>());
+        when(employeePatchService.patch(EXISTING_ID, changes, 3L)).thenReturn(true);
+
+        ResponseEntity<?> response = employeeController.patchEmployee(EXISTING_ID, changes, "\"1-3\"");
+
+        assertEquals(204, response.getStatusCode().value());
+        assertEquals("\"1-4\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedOnVersionConflict() {
+        Map<String, Object> changes = Map.of("mail", "jean.dupont@email.com");
+        when(employeePatchService.validate(changes)).thenReturn(new ArrayList<>());
+        when(employeePatchService.patch(EXISTING_ID, changes, 3L))
+                .thenThrow(new OptimisticLockingFailureException("conflit"));
+
+        ResponseEntity<?> response = employeeController.patchEmployee(EXISTING_ID, changes, "\"1-3\"");
+
+        assertEquals(412, response.getStatusCode().value());
+    }
+
+    @Test
+    void shouldRejectETagOfAnotherEmployee() {
+        assertNull(EmployeeController.parseETagVersion(EXISTING_ID, "\"2-3\""));
+        assertEquals(3L, EmployeeController.parseETagVersion(EXISTING_ID, "W/\"1-3\""));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,251 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.WriteOperation;
+import com.fplaisant.hrapi.model.WriteOperationStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AsyncWriteService against an in-memory H2 database built from
+ * data.sql and a write-ahead log in a temporary directory: operation status,
+ * coalescing of successive updates, passwords encrypted in the log and hashed by
+ * the writer, unchanged passwords, isolation of a failing operation and restart
+ * without replaying applied operations.
+ */
+@ExtendWith(MockitoExtension.class)
+class AsyncWriteServiceTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("data.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+    }
+
+    private final List<AsyncWriteService> services = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(AsyncWriteService::shutdown);
+        database.shutdown();
+    }
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private AsyncWriteService createService() throws IOException {
+        return createService(KEY);
+    }
+
+    private AsyncWriteService createService(String key) throws IOException {
+        AsyncWriteService service = new AsyncWriteService(employeeService, jdbcTemplate, transactionTemplate,
+                new SimpleMeterRegistry(), directory.toString(), DataSize.ofKilobytes(64), false, 500,
+                Duration.ofHours(24), key, 2);
+        services.add(service);
+        return service;
+    }
+
+    // Contenu brut des segments du journal
+    private String logContent() throws IOException {
+        StringBuilder content = new StringBuilder();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                content.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        return content.toString();
+    }
+
+    private static Employee employee(String firstName, String password) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName("Dupont");
+        employee.setPassword(password);
+        return employee;
+    }
+
+    private static Employee saved(long id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        return employee;
+    }
+
+    @Test
+    void testCreateIsPendingThenApplied() throws IOException {
+        when(employeeService.hashPassword("SecurePass123")).thenReturn("{bcrypt}hash");
+        when(employeeService.createEncodedEmployee(any(Employee.class))).thenReturn(saved(42));
+        AsyncWriteService service = createService();
+
+        WriteOperationStatus accepted = service.submit(WriteOperation.Type.CREATE, null, employee("Jean", "SecurePass123"));
+
+        assertEquals(WriteOperationStatus.Status.PENDING, accepted.getStatus());
+        // Ni bcrypt sur le thread de la requête, ni mot de passe en clair dans le journal
+        verify(employeeService, never()).hashPassword(any());
+        assertTrue(logContent().contains("Jean"));
+        assertFalse(logContent().contains("SecurePass123"));
+        assertEquals(WriteOperationStatus.Status.PENDING, service.getStatus(accepted.getId()).orElseThrow().getStatus());
+        service.applyPending();
+        WriteOperationStatus status = service.getStatus(accepted.getId()).orElseThrow();
+        assertEquals(WriteOperationStatus.Status.APPLIED, status.getStatus());
+        assertEquals(42L, status.getEmployeeId());
+        ArgumentCaptor<Employee> created = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeService).createEncodedEmployee(created.capture());
+        assertEquals("{bcrypt}hash", created.getValue().getPassword());
+        assertTrue(service.getStatus(accepted.getId() + 1).isEmpty());
+    }
+
+    @Test
+    void testSuccessiveUpdatesOfSameEmployeeAreCoalesced() throws IOException {
+        when(employeeService.updateEncodedEmployee(eq(1L), any(Employee.class))).thenReturn(Optional.of(saved(1)));
+        when(employeeService.updateEncodedEmployee(eq(2L), any(Employee.class))).thenReturn(Optional.of(saved(2)));
+        AsyncWriteService service = createService();
+        long first = service.submit(WriteOperation.Type.UPDATE, 1L, employee("Jean", null)).getId();
+        service.submit(WriteOperation.Type.UPDATE, 2L, employee("Marie", null));
+        Employee mail = new Employee();
+        mail.setMail("paul@mail.com");
+        long last = service.submit(WriteOperation.Type.UPDATE, 1L, mail).getId();
+
+        service.applyPending();
+
+        ArgumentCaptor<Employee> merged = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeService, times(1)).updateEncodedEmployee(eq(1L), merged.capture());
+        assertEquals("Jean", merged.getValue().getFirstName());
+        assertEquals("paul@mail.com", merged.getValue().getMail());
+        assertEquals(WriteOperationStatus.Status.APPLIED, service.getStatus(first).orElseThrow().getStatus());
+        assertEquals(WriteOperationStatus.Status.APPLIED, service.getStatus(last).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testUnchangedPasswordIsNotReencoded() throws IOException {
+        when(employeeService.passwordMatches(1L, "SecurePass123")).thenReturn(true);
+        when(employeeService.updateEncodedEmployee(eq(1L), any(Employee.class))).thenReturn(Optional.of(saved(1)));
+        AsyncWriteService service = createService();
+
+        service.submit(WriteOperation.Type.UPDATE, 1L, employee("Jean", "SecurePass123"));
+        verify(employeeService, never()).passwordMatches(any(), any());
+        service.applyPending();
+
+        ArgumentCaptor<Employee> update = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeService).updateEncodedEmployee(eq(1L), update.capture());
+        assertNull(update.getValue().getPassword());
+        verify(employeeService, never()).hashPassword("SecurePass123");
+    }
+
+    @Test
+    void testUpdatesAreNotMergedAcrossDelete() {
+        List<WriteOperation> operations = List.of(
+                new WriteOperation(1, WriteOperation.Type.UPDATE, 1L, employee("A", null), 0, "alice"),
+                new WriteOperation(2, WriteOperation.Type.DELETE, 1L, null, 0, "alice"),
+                new WriteOperation(3, WriteOperation.Type.UPDATE, 1L, employee("B", null), 0, "alice"),
+                new WriteOperation(4, WriteOperation.Type.UPDATE, 1L, employee("C", null), 0, "alice"));
+
+        List<List<WriteOperation>> groups = AsyncWriteService.coalesce(operations);
+
+        assertEquals(3, groups.size());
+        assertEquals(WriteOperation.Type.DELETE, groups.get(1).get(0).getType());
+        assertEquals(2, groups.get(2).size());
+        assertEquals("C", AsyncWriteService.merge(groups.get(2)).getFirstName());
+    }
+
+    @Test
+    void testFailingOperationIsIsolatedFromItsBatch() throws IOException {
+        when(employeeService.hashPassword(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(employeeService.createEncodedEmployee(argThat(e -> e != null && "Jean".equals(e.getFirstName()))))
+                .thenReturn(saved(10));
+        when(employeeService.createEncodedEmployee(argThat(e -> e != null && "Bad".equals(e.getFirstName()))))
+                .thenThrow(new DataIntegrityViolationException("NULL not allowed for column MAIL"));
+        AsyncWriteService service = createService();
+        long good = service.submit(WriteOperation.Type.CREATE, null, employee("Jean", "{bcrypt}hash")).getId();
+        long bad = service.submit(WriteOperation.Type.CREATE, null, employee("Bad", "{bcrypt}hash")).getId();
+
+        service.applyPending();
+
+        assertEquals(WriteOperationStatus.Status.APPLIED, service.getStatus(good).orElseThrow().getStatus());
+        WriteOperationStatus failed = service.getStatus(bad).orElseThrow();
+        assertEquals(WriteOperationStatus.Status.FAILED, failed.getStatus());
+        assertTrue(failed.getError().contains("MAIL"));
+    }
+
+    @Test
+    void testRestartDoesNotReplayAppliedOperations() throws IOException {
+        AsyncWriteService service = createService();
+        long applied = service.submit(WriteOperation.Type.DELETE, 1L, null).getId();
+        service.applyPending();
+        long notApplied = service.submit(WriteOperation.Type.DELETE, 2L, null).getId();
+        // data.sql est rejoué à chaque démarrage
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(database);
+
+        AsyncWriteService restarted = createService();
+        restarted.applyPending();
+
+        verify(employeeService, times(1)).removeEmployee(1L);
+        verify(employeeService, times(1)).removeEmployee(2L);
+        assertEquals(WriteOperationStatus.Status.APPLIED, restarted.getStatus(notApplied).orElseThrow().getStatus());
+        assertTrue(restarted.submit(WriteOperation.Type.DELETE, 3L, null).getId() > notApplied);
+        assertEquals(applied + 1, notApplied);
+    }
+
+    @Test
+    void testPasswordLoggedWithAnotherKeyFailsOnlyItsOperation() throws IOException {
+        when(employeeService.createEncodedEmployee(any(Employee.class))).thenReturn(saved(10));
+        long unreadable = createService(Base64.getEncoder().encodeToString(new byte[16]))
+                .submit(WriteOperation.Type.CREATE, null, employee("Jean", "SecurePass123")).getId();
+
+        AsyncWriteService restarted = createService();
+        long next = restarted.submit(WriteOperation.Type.CREATE, null, employee("Marie", null)).getId();
+        restarted.applyPending();
+
+        WriteOperationStatus failed = restarted.getStatus(unreadable).orElseThrow();
+        assertEquals(WriteOperationStatus.Status.FAILED, failed.getStatus());
+        assertTrue(failed.getError().contains("illisible"));
+        assertEquals(WriteOperationStatus.Status.APPLIED, restarted.getStatus(next).orElseThrow().getStatus());
+        verify(employeeService, times(1)).createEncodedEmployee(any(Employee.class));
+        verify(employeeService, never()).hashPassword(any());
+    }
+}
@@ -0,0 +1,170 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.EmployeeHistoryEntry;
+import com.fplaisant.hrapi.model.OutboxEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmployeeAuditService against an in-memory H2 database built from
+ * data.sql: recording of relayed events, expansion of bulk imports, point-in-time
+ * reconstruction across snapshots and compaction of covered history.
+ */
+class EmployeeAuditServiceTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-01T00:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("data.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private EmployeeAuditService createService(int snapshotThreshold, Duration retention) {
+        return new EmployeeAuditService(jdbcTemplate, objectMapper, true, snapshotThreshold, retention);
+    }
+
+    private OutboxEvent outboxEvent(EmployeeEvent.Op op, Long id, Map<String, Object> changes, long version,
+                                    Instant timestamp) throws Exception {
+        EmployeeEvent event = new EmployeeEvent(op, id, changes, version, timestamp.toEpochMilli(), version);
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setId(version);
+        outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        outboxEvent.setActor("admin");
+        outboxEvent.setTraceId("trace-" + version);
+        return outboxEvent;
+    }
+
+    private static Employee employee(long id, String firstName) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName(firstName);
+        employee.setLastName("Curie");
+        employee.setMail(firstName.toLowerCase() + "@mail.com");
+        employee.setPassword("{bcrypt}hash");
+        return employee;
+    }
+
+    private Integer count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    @Test
+    void shouldRecordChangesWithActorAndTrace() throws Exception {
+        EmployeeAuditService service = createService(100, Duration.ZERO);
+
+        service.record(List.of(
+                outboxEvent(EmployeeEvent.Op.CREATED, 4L, Map.of("firstName", "Jean", "lastName", "Dupont",
+                        "mail", "jean@mail.com"), 1, T0),
+                outboxEvent(EmployeeEvent.Op.UPDATED, 4L, Map.of("lastName", "Durand"), 2, T0.plusSeconds(60)),
+                outboxEvent(EmployeeEvent.Op.UPDATED, 5L, Map.of("mail", "other@mail.com"), 3, T0.plusSeconds(60))));
+
+        List<EmployeeHistoryEntry> history = service.getChanges(4L, Instant.EPOCH, T0.plusSeconds(3600), 0, 10);
+        assertEquals(2, history.size());
+        assertEquals(EmployeeEvent.Op.CREATED, history.get(0).getOp());
+        assertEquals(Map.of("lastName", "Durand"), history.get(1).getChanges());
+        assertEquals("admin", history.get(1).getActor());
+        assertEquals("trace-2", history.get(1).getTraceId());
+        assertEquals(T0.plusSeconds(60), history.get(1).getChangedAt());
+
+        // Toutes les modifications de la période, par pages
+        List<EmployeeHistoryEntry> page = service.getChanges(null, T0.plusSeconds(1), T0.plusSeconds(3600), 0, 1);
+        assertEquals(1, page.size());
+        List<EmployeeHistoryEntry> next = service.getChanges(null, T0.plusSeconds(1), T0.plusSeconds(3600),
+                page.get(0).getId(), 1);
+        assertEquals(5L, next.get(0).getEmployeeId());
+    }
+
+    @Test
+    void shouldReconstructStateAtInstantAcrossSnapshots() throws Exception {
+        EmployeeAuditService service = createService(2, Duration.ZERO);
+
+        service.record(List.of(outboxEvent(EmployeeEvent.Op.CREATED, 4L, Map.of("firstName", "Jean",
+                "lastName", "Dupont", "mail", "jean@mail.com"), 1, T0)));
+        service.record(List.of(outboxEvent(EmployeeEvent.Op.UPDATED, 4L, Map.of("firstName", "Paul"), 2,
+                T0.plusSeconds(10))));
+        service.record(List.of(outboxEvent(EmployeeEvent.Op.UPDATED, 4L, Map.of("mail", "paul@mail.com"), 3,
+                T0.plusSeconds(20))));
+        service.record(List.of(outboxEvent(EmployeeEvent.Op.DELETED, 4L, Map.of(), 4, T0.plusSeconds(30))));
+
+        assertEquals(2, count("employee_snapshot"));
+        assertTrue(service.getEmployeeAt(4L, T0.minusSeconds(1)).isEmpty());
+        Employee created = service.getEmployeeAt(4L, T0.plusSeconds(5)).orElseThrow();
+        assertEquals("Jean", created.getFirstName());
+        assertEquals("jean@mail.com", created.getMail());
+        Employee updated = service.getEmployeeAt(4L, T0.plusSeconds(25)).orElseThrow();
+        assertEquals("Paul", updated.getFirstName());
+        assertEquals("Dupont", updated.getLastName());
+        assertEquals("paul@mail.com", updated.getMail());
+        assertEquals(3, updated.getVersion());
+        assertEquals(Optional.empty(), service.getEmployeeAt(4L, T0.plusSeconds(35)));
+    }
+
+    @Test
+    void shouldExpandImportIntoOneEntryPerEmployee() throws Exception {
+        EmployeeAuditService service = createService(100, Duration.ZERO);
+
+        Map<String, Object> changes = EmployeeEvent.imported(List.of(employee(10L, "Marie"), employee(11L, "Pierre")), 1)
+                .getChanges();
+        // Lignes déjà modifiées ou supprimées au moment du relais : l'historique garde les valeurs importées
+        service.record(List.of(outboxEvent(EmployeeEvent.Op.IMPORTED, null, changes, 1, T0)));
+
+        List<EmployeeHistoryEntry> history = service.getChanges(null, Instant.EPOCH, T0.plusSeconds(1), 0, 10);
+        assertEquals(List.of(10L, 11L), history.stream().map(EmployeeHistoryEntry::getEmployeeId).toList());
+        assertEquals(EmployeeEvent.Op.IMPORTED, history.get(0).getOp());
+        assertEquals(0L, history.get(0).getEmployeeVersion());
+        assertEquals("Marie", service.getEmployeeAt(10L, T0).orElseThrow().getFirstName());
+        assertEquals("pierre@mail.com", service.getEmployeeAt(11L, T0).orElseThrow().getMail());
+        assertFalse(history.get(0).getChanges().containsKey("password"));
+    }
+
+    @Test
+    void shouldCompactHistoryCoveredBySnapshot() throws Exception {
+        EmployeeAuditService service = createService(2, Duration.ofDays(1));
+        Instant old = Instant.now().minus(Duration.ofDays(10));
+
+        service.record(List.of(
+                outboxEvent(EmployeeEvent.Op.CREATED, 4L, Map.of("firstName", "Jean", "lastName", "Dupont",
+                        "mail", "jean@mail.com"), 1, old),
+                outboxEvent(EmployeeEvent.Op.UPDATED, 4L, Map.of("firstName", "Paul"), 2, old.plusSeconds(10))));
+        service.record(List.of(outboxEvent(EmployeeEvent.Op.UPDATED, 4L, Map.of("lastName", "Durand"), 3,
+                Instant.now())));
+
+        service.compact();
+
+        assertEquals(1, count("employee_history"));
+        Employee current = service.getEmployeeAt(4L, Instant.now().plusSeconds(1)).orElseThrow();
+        assertEquals("Paul", current.getFirstName());
+        assertEquals("Durand", current.getLastName());
+        assertThrows(IllegalArgumentException.class, () -> service.getEmployeeAt(4L, old));
+    }
+}
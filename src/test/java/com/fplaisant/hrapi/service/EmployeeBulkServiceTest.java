@@ -0,0 +1,232 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.ImportReport;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeeBulkService.
+ *
+ * Verifies CSV parsing, including quoted line breaks and the export/import
+ * round trip, per-row validation errors, JDBC batching and the event
+ * recorded with the inserted rows and generated ids of each batch, also when the
+ * upload fails.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeBulkServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeBulkService employeeBulkService;
+
+    @BeforeEach
+    void setUp() {
+        employeeBulkService = new EmployeeBulkService(jdbcTemplate, transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), employeeService, 2, 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        employeeBulkService.shutdown();
+    }
+
+    // Exécute les transactions et génère des ids à partir de 4 pour les lignes insérées
+    private void executeTransactions() {
+        AtomicLong nextId = new AtomicLong(4);
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            KeyHolder keyHolder = invocation.getArgument(2);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                keyHolder.getKeyList().add(Map.of("id", nextId.getAndIncrement()));
+            }
+            return new int[setter.getBatchSize()];
+        });
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    // Employé tel que publié après insertion : id généré, sans mot de passe
+    private static Employee inserted(long id, String firstName, String lastName, String mail) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setMail(mail);
+        return employee;
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldImportCsvInBatchesAndReportInvalidRows() throws Exception {
+        executeTransactions();
+        String csv = "first_name,last_name,mail,password\n"
+                + "Jean,Dupont,jean.dupont@email.com,SecurePass123\n"
+                + "Marie,Curie,invalid-email,SecurePass123\n"
+                + "\"Paul, Jr\",Martin,paul.martin@email.com,SecurePass123\n"
+                + "Louise,Michel,louise.michel@email.com,SecurePass123\n";
+
+        ImportReport report = employeeBulkService.importCsv(body(csv));
+
+        assertEquals(3, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.getErrors().get(0).startsWith("ligne 3"));
+        verify(employeeService, times(3)).hashPassword("SecurePass123");
+        verify(employeeService).recordImport(List.of(inserted(4L, "Jean", "Dupont", "jean.dupont@email.com"),
+                inserted(5L, "Paul, Jr", "Martin", "paul.martin@email.com")));
+        verify(employeeService).recordImport(List.of(inserted(6L, "Louise", "Michel", "louise.michel@email.com")));
+    }
+
+    @Test
+    void shouldImportNdjsonAndRejectMalformedLines() throws Exception {
+        executeTransactions();
+        String ndjson = "{\"firstName\":\"Jean\",\"lastName\":\"Dupont\",\"mail\":\"jean.dupont@email.com\",\"password\":\"SecurePass123\"}\n"
+                + "{not json}\n";
+
+        ImportReport report = employeeBulkService.importNdjson(body(ndjson));
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getRejected());
+        verify(employeeService).recordImport(List.of(inserted(4L, "Jean", "Dupont", "jean.dupont@email.com")));
+    }
+
+    @Test
+    void shouldRecordRowsReadBeforeStreamFailure() {
+        executeTransactions();
+        InputStream failing = new SequenceInputStream(body("first_name,last_name,mail,password\n"
+                + "Jean,Dupont,jean.dupont@email.com,SecurePass123\n"
+                + "Paul,Martin,paul.martin@email.com,SecurePass123\n"
+                + "Louise,Michel,louise.michel@email.com,SecurePass123\n"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> employeeBulkService.importCsv(failing));
+
+        verify(employeeService).recordImport(List.of(inserted(4L, "Jean", "Dupont", "jean.dupont@email.com"),
+                inserted(5L, "Paul", "Martin", "paul.martin@email.com")));
+        verify(employeeService).recordImport(List.of(inserted(6L, "Louise", "Michel", "louise.michel@email.com")));
+    }
+
+    @Test
+    void shouldNotRecordEventWhenNothingImported() throws Exception {
+        ImportReport report = employeeBulkService.importCsv(body("first_name,last_name,mail,password\nJean,,bad,short\n"));
+
+        assertEquals(0, report.getImported());
+        assertEquals(1, report.getRejected());
+        verifyNoInteractions(employeeService);
+    }
+
+    private static EmployeeBulkService.CsvReader csvReader(String content) {
+        return new EmployeeBulkService.CsvReader(new BufferedReader(new StringReader(content)));
+    }
+
+    @Test
+    void shouldParseAndEscapeQuotedCsvValues() throws Exception {
+        assertEquals(List.of("a", "b, c", "say \"hi\""), csvReader("a,\"b, c\",\"say \"\"hi\"\"\"").next());
+        assertEquals("\"b, c\"", EmployeeBulkService.csvEscape("b, c"));
+        assertEquals("plain", EmployeeBulkService.csvEscape("plain"));
+    }
+
+    @Test
+    void shouldReadQuotedLineBreaksAsOneRecord() throws Exception {
+        EmployeeBulkService.CsvReader reader = csvReader("a,\"line 1\r\nline 2\",b\n\nc,d\n\"open\n");
+
+        assertEquals(List.of("a", "line 1\nline 2", "b"), reader.next());
+        assertEquals(1, reader.recordLine());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertEquals(List.of("open"), reader.next());
+        assertFalse(reader.isTerminated());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void shouldRejectUnterminatedQuotedRecord() throws Exception {
+        ImportReport report = employeeBulkService.importCsv(body("first_name,last_name,mail,password\n"
+                + "\"Jean,Dupont,jean.dupont@email.com,SecurePass123\n"));
+
+        assertEquals(0, report.getImported());
+        assertEquals(List.of("ligne 2 : guillemet non fermé"), report.getErrors());
+    }
+
+    // Export de deux employés dont les noms contiennent virgule, guillemets et saut de ligne
+    private String exportTwoEmployees() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            consumer.accept(inserted(1L, "Paul, Jr", "Martin\nde la Tour", "paul.martin@email.com"));
+            consumer.accept(inserted(2L, "Jean \"JJ\"", "Dupont", "jean.dupont@email.com"));
+            return null;
+        }).when(employeeService).streamEmployees(any());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        employeeBulkService.exportCsv(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shouldRejectExportReimportedWithoutPasswords() throws Exception {
+        ImportReport report = employeeBulkService.importCsv(body(exportTwoEmployees()));
+
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertTrue(report.getErrors().get(0).startsWith("ligne 2 : password"));
+        assertTrue(report.getErrors().get(1).startsWith("ligne 4 : password"));
+    }
+
+    @Test
+    void shouldReimportExportCompletedWithPasswords() throws Exception {
+        String export = exportTwoEmployees();
+        executeTransactions();
+        String completed = export.replace("mail\n", "mail,password\n").replace("@email.com\n", "@email.com,SecurePass123\n");
+
+        ImportReport report = employeeBulkService.importCsv(body(completed));
+
+        assertEquals(2, report.getImported());
+        verify(employeeService).recordImport(List.of(
+                inserted(4L, "Paul, Jr", "Martin\nde la Tour", "paul.martin@email.com"),
+                inserted(5L, "Jean \"JJ\"", "Dupont", "jean.dupont@email.com")));
+    }
+}
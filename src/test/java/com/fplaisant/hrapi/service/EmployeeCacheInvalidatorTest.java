@@ -0,0 +1,91 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmployeeCacheInvalidator: an entry reloaded from the old row between
+ * the write's eviction and its commit is evicted again once the transaction commits.
+ */
+class EmployeeCacheInvalidatorTest {
+
+    private CaffeineCacheManager cacheManager;
+    private EmployeeCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(EmployeeService.EMPLOYEE_CACHE, EmployeeService.EMPLOYEES_CACHE);
+        invalidator = new EmployeeCacheInvalidator(cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Test
+    void shouldEvictStaleReloadAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        invalidator.evictAfterCommit(1L);
+        // Lecture concurrente de l'ancienne ligne, avant le commit de l'écriture
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).put(1L, new Employee());
+        cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).put("key", List.of());
+        assertNotNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(1L));
+
+        commit();
+
+        assertNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(1L));
+        assertNull(cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).get("key"));
+    }
+
+    @Test
+    void shouldKeepEntriesWhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        invalidator.evictAfterCommit(1L);
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).put(1L, new Employee());
+
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertNotNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(1L));
+    }
+
+    @Test
+    void shouldEvictImmediatelyOutsideTransaction() {
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).put(1L, new Employee());
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).put(2L, new Employee());
+
+        invalidator.evictAfterCommit(null);
+
+        assertNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(1L));
+        assertNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(2L));
+    }
+
+    @Test
+    void shouldEvictOnRemoteEvent() {
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).put(1L, new Employee());
+        cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).put(2L, new Employee());
+
+        invalidator.onEmployeeEvent(EmployeeEvent.deleted(1L, 5));
+
+        assertNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(1L));
+        assertNotNull(cacheManager.getCache(EmployeeService.EMPLOYEE_CACHE).get(2L));
+    }
+}
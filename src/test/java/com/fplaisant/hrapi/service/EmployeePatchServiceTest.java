@@ -0,0 +1,121 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.EmployeePatch;
+import com.fplaisant.hrapi.model.PatchReport;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeePatchService.
+ *
+ * Verifies that patches become targeted UPDATE statements batched by shape, that
+ * versioned patches fail on conflict and that events carry no password.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeePatchServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeePatchService employeePatchService;
+
+    @BeforeEach
+    void setUp() {
+        employeePatchService = new EmployeePatchService(jdbcTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(), passwordEncoder, employeeService);
+    }
+
+    @Test
+    void shouldBuildUpdateOfPatchedColumnsOnly() {
+        assertEquals("UPDATE employees SET mail = ?, version = version + 1 WHERE id = ? AND version = ?",
+                EmployeePatchService.updateSql(new EmployeePatch(1L, 3L, Map.of("mail", "jean@email.com"))));
+        assertEquals("UPDATE employees SET first_name = ?, last_name = ?, version = version + 1 WHERE id = ?",
+                EmployeePatchService.updateSql(new EmployeePatch(1L, null, Map.of("lastName", "Dupont", "firstName", "Jean"))));
+    }
+
+    @Test
+    void shouldRejectInvalidPatch() {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("mail", "invalid-email");
+        changes.put("lastName", null);
+        changes.put("id", "2");
+
+        List<String> errors = employeePatchService.validate(changes);
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.contains("lastName : ne peut pas être supprimé"));
+        assertTrue(errors.contains("id : champ non modifiable"));
+    }
+
+    @Test
+    void shouldRejectDuplicateIds() {
+        List<String> errors = employeePatchService.validateAll(List.of(
+                new EmployeePatch(1L, null, Map.of("firstName", "Jean")),
+                new EmployeePatch(1L, null, Map.of("lastName", "Dupont"))));
+
+        assertEquals(List.of("1 : id en double"), errors);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldBatchPatchesByShapeAndReportMissing() {
+        when(passwordEncoder.encode("SecurePass123")).thenReturn("{bcrypt}hash");
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE employees SET first_name"), anyList())).thenReturn(new int[]{1, 0});
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE employees SET password"), anyList())).thenReturn(new int[]{1});
+
+        PatchReport report = employeePatchService.patchAll(List.of(
+                new EmployeePatch(1L, null, Map.of("firstName", "Jean")),
+                new EmployeePatch(2L, null, Map.of("firstName", "Marie")),
+                new EmployeePatch(3L, null, Map.of("password", "SecurePass123"))));
+
+        assertEquals(2, report.getPatched());
+        assertEquals(List.of(2L), report.getMissing());
+        ArgumentCaptor<List<Object[]>> arguments = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE employees SET password"), arguments.capture());
+        assertArrayEquals(new Object[]{"{bcrypt}hash", 3L}, arguments.getValue().get(0));
+        ArgumentCaptor<List<EmployeeEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(employeeService).publishUpdates(events.capture());
+        assertEquals(List.of(1L, 3L), events.getValue().stream().map(EmployeeEvent::getId).toList());
+        assertEquals(Map.of("firstName", "Jean"), events.getValue().get(0).getChanges());
+        assertEquals(Map.of(), events.getValue().get(1).getChanges());
+        assertNull(events.getValue().get(0).getEmployeeVersion());
+    }
+
+    @Test
+    void shouldFailOnVersionConflict() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(1L))).thenReturn(1L);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> employeePatchService.patch(1L, Map.of("mail", "jean@email.com"), 3L));
+        verify(employeeService, never()).publishUpdates(any());
+    }
+
+    @Test
+    void shouldReturnFalseForMissingEmployee() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+
+        assertFalse(employeePatchService.patch(1L, Map.of("mail", "jean@email.com"), null));
+    }
+}
@@ -0,0 +1,86 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeePrefixIndex: case-insensitive prefix lookups on sorted
+ * arrays, result limit and rebuild only when the collection version changed.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeePrefixIndexTest {
+
+    @Mock
+    private EmployeeService employeeService;
+    @Mock
+    private EmployeeVersionTracker employeeVersionTracker;
+
+    private EmployeePrefixIndex index;
+
+    private static Employee createEmployee(long id, String firstName, String lastName) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setMail(firstName.toLowerCase() + "." + lastName.toLowerCase() + "@mail.com");
+        return employee;
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        doAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            consumer.accept(createEmployee(1, "Laurent", "GINA"));
+            consumer.accept(createEmployee(2, "Sophie", "FONCEK"));
+            consumer.accept(createEmployee(3, "Agathe", "FEELING"));
+            consumer.accept(createEmployee(4, "Paul", "FONTAINE"));
+            return null;
+        }).when(employeeService).streamEmployees(any(Consumer.class));
+        when(employeeVersionTracker.currentVersion()).thenReturn(1L);
+        index = new EmployeePrefixIndex(employeeService, employeeVersionTracker);
+        index.refresh();
+    }
+
+    @Test
+    void testLookupIsCaseInsensitiveAndSorted() {
+        List<EmployeeSuggestion> result = index.lookup(EmployeePrefixIndex.Field.LAST_NAME, "fon", 10);
+
+        assertEquals(List.of(2L, 4L), result.stream().map(EmployeeSuggestion::getId).toList());
+    }
+
+    @Test
+    void testLookupHonoursLimit() {
+        assertEquals(1, index.lookup(EmployeePrefixIndex.Field.LAST_NAME, "F", 1).size());
+        assertEquals(List.of(3L), index.lookup(EmployeePrefixIndex.Field.LAST_NAME, "F", 1).stream()
+                .map(EmployeeSuggestion::getId).toList());
+    }
+
+    @Test
+    void testLookupWithoutMatch() {
+        assertTrue(index.lookup(EmployeePrefixIndex.Field.MAIL, "zz", 10).isEmpty());
+        assertEquals(4, index.lookup(EmployeePrefixIndex.Field.FIRST_NAME, "", 10).size());
+    }
+
+    @Test
+    void testRefreshRebuildsOnlyWhenVersionChanged() {
+        index.refresh();
+        verify(employeeService, times(1)).streamEmployees(any());
+
+        when(employeeVersionTracker.currentVersion()).thenReturn(2L);
+        index.refresh();
+        verify(employeeService, times(2)).streamEmployees(any());
+    }
+}
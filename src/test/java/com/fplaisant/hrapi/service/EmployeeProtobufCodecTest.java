@@ -0,0 +1,95 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EmployeeProtobufCodec: round trips of employees, lists and every event
+ * kind, unknown fields skipped for forward compatibility, and no password on the wire.
+ */
+class EmployeeProtobufCodecTest {
+
+    private final EmployeeProtobufCodec codec = new EmployeeProtobufCodec();
+
+    private static Employee createEmployee(long id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("Jérôme");
+        employee.setLastName("Dupont");
+        employee.setMail("jerome.dupont" + id + "@email.com");
+        employee.setPassword("{bcrypt}hash");
+        employee.setVersion(3);
+        return employee;
+    }
+
+    @Test
+    void testEmployeeRoundTripWithoutPassword() throws Exception {
+        Employee employee = createEmployee(42);
+
+        byte[] bytes = codec.encode(employee);
+        Employee decoded = codec.decodeEmployee(bytes);
+
+        assertEquals(42L, decoded.getId());
+        assertEquals("Jérôme", decoded.getFirstName());
+        assertEquals("jerome.dupont42@email.com", decoded.getMail());
+        assertEquals(3, decoded.getVersion());
+        assertNull(decoded.getPassword());
+        assertTrue(bytes.length < new ObjectMapper().writeValueAsBytes(employee).length);
+    }
+
+    @Test
+    void testEmployeeListRoundTrip() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        codec.writeEmployees(List.of(createEmployee(1), createEmployee(300)), output);
+        List<Employee> decoded = codec.decodeEmployees(output.toByteArray());
+
+        assertEquals(List.of(1L, 300L), decoded.stream().map(Employee::getId).toList());
+    }
+
+    @Test
+    void testEventRoundTrips() {
+        for (EmployeeEvent event : List.of(
+                EmployeeEvent.created(createEmployee(1), 1),
+                EmployeeEvent.updated(1L, Map.of("lastName", "Martin"), 2, 4L),
+                EmployeeEvent.updated(1L, Map.of(), 3),
+                EmployeeEvent.deleted(1L, 4),
+                EmployeeEvent.imported(List.of(createEmployee(10), createEmployee(11), createEmployee(300)), 5))) {
+            assertEquals(event, codec.decodeEvent(codec.encode(event)));
+        }
+    }
+
+    @Test
+    void testUnknownFieldsAreSkipped() {
+        byte[] employee = codec.encode(createEmployee(7));
+        // Champ 15 (varint) puis champ 16 (chaîne) ajoutés par une version plus récente du schéma
+        byte[] extended = new byte[employee.length + 6];
+        System.arraycopy(employee, 0, extended, 0, employee.length);
+        int i = employee.length;
+        extended[i++] = (byte) (15 << 3);
+        extended[i++] = 1;
+        extended[i++] = (byte) 0x82;
+        extended[i++] = 0x01;
+        extended[i++] = 1;
+        extended[i] = 'x';
+
+        assertEquals(7L, codec.decodeEmployee(extended).getId());
+    }
+
+    @Test
+    void testTruncatedMessageIsRejected() {
+        byte[] bytes = codec.encode(createEmployee(7));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.decodeEmployee(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+}
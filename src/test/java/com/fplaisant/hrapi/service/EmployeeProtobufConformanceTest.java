@@ -0,0 +1,126 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.proto.EmployeeList;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Conformance of the hand-written EmployeeProtobufCodec with proto/hrapi.proto:
+ * messages written by the codec are parsed by the classes protoc generates from the
+ * schema (protobuf-java), and messages built with those classes are decoded by the
+ * codec, including proto3 defaults that protoc does not write and unknown enum values.
+ */
+class EmployeeProtobufConformanceTest {
+
+    private final EmployeeProtobufCodec codec = new EmployeeProtobufCodec();
+
+    private static Employee employee(long id, long version) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("Jérôme");
+        employee.setLastName("Dupont");
+        employee.setMail("jerome.dupont" + id + "@email.com");
+        employee.setPassword("{bcrypt}hash");
+        employee.setVersion(version);
+        return employee;
+    }
+
+    private static com.fplaisant.hrapi.proto.Employee message(long id, long version) {
+        return com.fplaisant.hrapi.proto.Employee.newBuilder()
+                .setId(id)
+                .setFirstName("Jérôme")
+                .setLastName("Dupont")
+                .setMail("jerome.dupont" + id + "@email.com")
+                .setVersion(version)
+                .build();
+    }
+
+    @Test
+    void shouldWriteEmployeesReadableByProtobufJava() throws Exception {
+        assertEquals(message(42, 3), com.fplaisant.hrapi.proto.Employee.parseFrom(codec.encode(employee(42, 3))));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.writeEmployees(List.of(employee(1, 0), employee(300, 7)), output);
+        assertEquals(EmployeeList.newBuilder().addEmployees(message(1, 0)).addEmployees(message(300, 7)).build(),
+                EmployeeList.parseFrom(output.toByteArray()));
+    }
+
+    @Test
+    void shouldReadEmployeesWrittenByProtobufJava() {
+        Employee decoded = codec.decodeEmployee(message(42, 3).toByteArray());
+
+        assertEquals(42L, decoded.getId());
+        assertEquals("Jérôme", decoded.getFirstName());
+        assertEquals("jerome.dupont42@email.com", decoded.getMail());
+        assertEquals(3, decoded.getVersion());
+        byte[] list = EmployeeList.newBuilder().addEmployees(message(1, 0)).addEmployees(message(300, 7)).build().toByteArray();
+        assertEquals(List.of(1L, 300L), codec.decodeEmployees(list).stream().map(Employee::getId).toList());
+    }
+
+    @Test
+    void shouldWriteEventsReadableByProtobufJava() throws Exception {
+        com.fplaisant.hrapi.proto.EmployeeEvent created = com.fplaisant.hrapi.proto.EmployeeEvent.parseFrom(
+                codec.encode(new EmployeeEvent(EmployeeEvent.Op.CREATED, 1L,
+                        EmployeeEvent.created(employee(1, 0), 1).getChanges(), 1, 1000, 0L)));
+        assertEquals(com.fplaisant.hrapi.proto.EmployeeEvent.Op.CREATED, created.getOp());
+        assertEquals(1L, created.getId());
+        assertEquals("Jérôme", created.getFirstName());
+        assertEquals(1000L, created.getTimestamp());
+        assertTrue(created.hasEmployeeVersion());
+
+        com.fplaisant.hrapi.proto.EmployeeEvent updated = com.fplaisant.hrapi.proto.EmployeeEvent.parseFrom(
+                codec.encode(EmployeeEvent.updated(1L, Map.of("lastName", "Martin"), 2, 4L)));
+        assertEquals(com.fplaisant.hrapi.proto.EmployeeEvent.Op.UPDATED, updated.getOp());
+        assertEquals("Martin", updated.getLastName());
+        assertFalse(updated.hasFirstName());
+        assertEquals(4L, updated.getEmployeeVersion());
+
+        com.fplaisant.hrapi.proto.EmployeeEvent imported = com.fplaisant.hrapi.proto.EmployeeEvent.parseFrom(
+                codec.encode(EmployeeEvent.imported(List.of(employee(10, 0), employee(11, 0)), 5)));
+        assertEquals(com.fplaisant.hrapi.proto.EmployeeEvent.Op.IMPORTED, imported.getOp());
+        assertFalse(imported.hasId());
+        assertEquals(List.of(message(10, 0), message(11, 0)), imported.getEmployeesList());
+        assertTrue(imported.getUnknownFields().asMap().isEmpty());
+    }
+
+    @Test
+    void shouldReadEventsWrittenByProtobufJava() {
+        // CREATED vaut 0 : protoc n'écrit pas le champ op
+        EmployeeEvent created = codec.decodeEvent(com.fplaisant.hrapi.proto.EmployeeEvent.newBuilder()
+                .setId(1).setVersion(1).setTimestamp(1000).setEmployeeVersion(0)
+                .setFirstName("Jérôme").setLastName("Dupont").setMail("jerome.dupont1@email.com")
+                .build().toByteArray());
+        assertEquals(new EmployeeEvent(EmployeeEvent.Op.CREATED, 1L, Map.of("firstName", "Jérôme",
+                "lastName", "Dupont", "mail", "jerome.dupont1@email.com"), 1, 1000, 0L), created);
+
+        EmployeeEvent deleted = codec.decodeEvent(com.fplaisant.hrapi.proto.EmployeeEvent.newBuilder()
+                .setOp(com.fplaisant.hrapi.proto.EmployeeEvent.Op.DELETED).setId(1).setVersion(4)
+                .build().toByteArray());
+        assertEquals(EmployeeEvent.Op.DELETED, deleted.getOp());
+        assertEquals(Map.of(), deleted.getChanges());
+
+        EmployeeEvent imported = codec.decodeEvent(com.fplaisant.hrapi.proto.EmployeeEvent.newBuilder()
+                .setOp(com.fplaisant.hrapi.proto.EmployeeEvent.Op.IMPORTED).setVersion(5)
+                .addEmployees(message(10, 1)).addEmployees(message(11, 1))
+                .build().toByteArray());
+        assertEquals(List.of(10L, 11L), imported.importedEmployees().stream().map(Employee::getId).toList());
+    }
+
+    @Test
+    void shouldRejectUnknownOp() {
+        // Op ajouté par une version plus récente du schéma
+        byte[] bytes = com.fplaisant.hrapi.proto.EmployeeEvent.newBuilder()
+                .setOpValue(7).setId(1).setVersion(6)
+                .build().toByteArray();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> codec.decodeEvent(bytes));
+        assertTrue(error.getMessage().contains("7"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeSuggestion;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeeSearchService: sort whitelisting with a stable id tie-break,
+ * and type-ahead served by the prefix index or, when it is not ready, by the database
+ * (lower-case prefix queries when hrapi.search.lower-case-prefix is set).
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeSearchServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private ObjectProvider<EmployeePrefixIndex> prefixIndexProvider;
+    @Mock
+    private EmployeePrefixIndex prefixIndex;
+
+    private EmployeeSearchService employeeSearchService;
+
+    @BeforeEach
+    void setUp() {
+        employeeSearchService = new EmployeeSearchService(employeeRepository, prefixIndexProvider, false);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSearchAddsIdTieBreak() {
+        when(employeeRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(Page.empty());
+
+        employeeSearchService.search(null, "dup", null, null, PageRequest.of(2, 20, Sort.by("lastName")));
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(employeeRepository).findAll(any(Specification.class), pageable.capture());
+        assertEquals(2, pageable.getValue().getPageNumber());
+        assertEquals(Sort.by("lastName").and(Sort.by("id")), pageable.getValue().getSort());
+    }
+
+    @Test
+    void testSearchRejectsUnknownSort() {
+        assertThrows(IllegalArgumentException.class, () ->
+                employeeSearchService.search(null, null, null, null, PageRequest.of(0, 20, Sort.by("password"))));
+        verifyNoInteractions(employeeRepository);
+    }
+
+    @Test
+    void testSuggestUsesIndexWhenReady() {
+        EmployeeSuggestion suggestion = new EmployeeSuggestion(1L, "Laurent", "GINA", "laurentgina@mail.com");
+        when(prefixIndexProvider.getIfAvailable()).thenReturn(prefixIndex);
+        when(prefixIndex.isReady()).thenReturn(true);
+        when(prefixIndex.lookup(EmployeePrefixIndex.Field.LAST_NAME, "gi", 10)).thenReturn(List.of(suggestion));
+
+        assertEquals(List.of(suggestion), employeeSearchService.suggest(EmployeePrefixIndex.Field.LAST_NAME, "gi", 10));
+        verifyNoInteractions(employeeRepository);
+    }
+
+    @Test
+    void testSuggestFallsBackToDatabase() {
+        Employee employee = new Employee();
+        employee.setId(1L);
+        employee.setMail("laurentgina@mail.com");
+        when(prefixIndexProvider.getIfAvailable()).thenReturn(null);
+        when(employeeRepository.findByMailStartingWithOrderByMailAsc(eq("laurent"), any(Limit.class))).thenReturn(List.of(employee));
+
+        List<EmployeeSuggestion> result = employeeSearchService.suggest(EmployeePrefixIndex.Field.MAIL, "laurent", 500);
+
+        assertEquals(1, result.size());
+        assertEquals("laurentgina@mail.com", result.get(0).getMail());
+    }
+
+    @Test
+    void testSuggestMatchesLowerCasePrefixWhenEnabled() {
+        employeeSearchService = new EmployeeSearchService(employeeRepository, prefixIndexProvider, true);
+        Employee employee = new Employee();
+        employee.setId(1L);
+        employee.setLastName("GINA_B");
+        when(prefixIndexProvider.getIfAvailable()).thenReturn(null);
+        when(employeeRepository.findByLowerLastNameLike(eq("gina\\_%"), any(Limit.class))).thenReturn(List.of(employee));
+
+        List<EmployeeSuggestion> result = employeeSearchService.suggest(EmployeePrefixIndex.Field.LAST_NAME, "GINA_", 10);
+
+        assertEquals("GINA_B", result.get(0).getLastName());
+    }
+}
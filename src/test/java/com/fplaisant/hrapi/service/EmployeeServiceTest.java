@@ -0,0 +1,221 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the write paths of EmployeeService.
+ *
+ * Verifies that each mutation records a single delta event in the outbox
+ * (through EmployeeProducer) carrying only the changed fields and the
+ * version allocated in the same transaction.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeServiceTest {
+    private static final Long EXISTING_ID = 1L;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private EmployeeProducer employeeProducer;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private EmployeeVersionTracker employeeVersionTracker;
+    @Mock
+    private EmployeeCacheInvalidator employeeCacheInvalidator;
+    @Mock
+    private EntityManager entityManager;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks
+    private EmployeeService employeeService;
+
+    private Employee createEmployee(String firstName, String lastName, String mail) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setMail(mail);
+        employee.setPassword("SecurePass123");
+        return employee;
+    }
+
+    private EmployeeEvent captureEvent(String topic) throws Exception {
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(employeeProducer).sendEmployeeEvent(eq(topic), eq(String.valueOf(EXISTING_ID)), json.capture());
+        return objectMapper.readValue(json.getValue(), EmployeeEvent.class);
+    }
+
+    @Test
+    void shouldRecordCreatedEventWithoutPassword() throws Exception {
+        Employee employee = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        when(passwordEncoder.encode("SecurePass123")).thenReturn("{bcrypt}hash");
+        when(employeeRepository.save(employee)).thenAnswer(invocation -> {
+            employee.setId(EXISTING_ID);
+            return employee;
+        });
+        when(employeeRepository.currentVersion()).thenReturn(7L);
+
+        employeeService.createEmployee(employee);
+
+        assertEquals("{bcrypt}hash", employee.getPassword());
+        EmployeeEvent event = captureEvent("employee-add");
+        assertEquals(EmployeeEvent.Op.CREATED, event.getOp());
+        assertEquals(EXISTING_ID, event.getId());
+        assertEquals(7L, event.getVersion());
+        assertEquals("Jean", event.getChanges().get("firstName"));
+        assertFalse(event.getChanges().containsKey("password"));
+        verify(employeeRepository).incrementVersion();
+    }
+
+    @Test
+    void shouldRecordOnlyChangedFieldsOnUpdate() throws Exception {
+        Employee existing = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        existing.setId(EXISTING_ID);
+        when(employeeRepository.findById(EXISTING_ID)).thenReturn(Optional.of(existing));
+        when(employeeRepository.save(existing)).thenReturn(existing);
+        when(employeeRepository.currentVersion()).thenReturn(8L);
+        when(passwordEncoder.matches("SecurePass123", "SecurePass123")).thenReturn(true);
+        doAnswer(invocation -> {
+            existing.setVersion(existing.getVersion() + 1);
+            return null;
+        }).when(entityManager).flush();
+
+        Optional<Employee> result = employeeService.updateEmployee(EXISTING_ID,
+                createEmployee("Paul", "Dupont", "jean.dupont@email.com"));
+
+        assertTrue(result.isPresent());
+        EmployeeEvent event = captureEvent("employee-update");
+        assertEquals(EmployeeEvent.Op.UPDATED, event.getOp());
+        assertEquals(Map.of("firstName", "Paul"), event.getChanges());
+        assertEquals(8L, event.getVersion());
+        assertEquals(1L, event.getEmployeeVersion());
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    void shouldRecordEventWithoutFieldsWhenOnlyPasswordChanged() throws Exception {
+        Employee existing = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        existing.setId(EXISTING_ID);
+        existing.setPassword("{bcrypt}old");
+        when(employeeRepository.findById(EXISTING_ID)).thenReturn(Optional.of(existing));
+        when(employeeRepository.save(existing)).thenReturn(existing);
+        when(employeeRepository.currentVersion()).thenReturn(8L);
+        when(passwordEncoder.matches("SecurePass123", "{bcrypt}old")).thenReturn(false);
+        when(passwordEncoder.encode("SecurePass123")).thenReturn("{bcrypt}new");
+
+        employeeService.updateEmployee(EXISTING_ID, createEmployee("Jean", "Dupont", "jean.dupont@email.com"));
+
+        assertEquals("{bcrypt}new", existing.getPassword());
+        EmployeeEvent event = captureEvent("employee-update");
+        assertTrue(event.getChanges().isEmpty());
+        verify(entityManager).flush();
+    }
+
+    @Test
+    void shouldStoreEncodedPasswordAsIsOnAsyncUpdate() {
+        Employee existing = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        existing.setId(EXISTING_ID);
+        existing.setPassword("{bcrypt}old");
+        when(employeeRepository.findById(EXISTING_ID)).thenReturn(Optional.of(existing));
+        when(employeeRepository.save(existing)).thenReturn(existing);
+        when(employeeRepository.currentVersion()).thenReturn(8L);
+        Employee update = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        update.setPassword("{bcrypt}new");
+
+        employeeService.updateEncodedEmployee(EXISTING_ID, update);
+
+        assertEquals("{bcrypt}new", existing.getPassword());
+        verifyNoInteractions(passwordEncoder);
+        verify(employeeProducer).sendEmployeeEvent(eq("employee-update"), eq(String.valueOf(EXISTING_ID)), anyString());
+    }
+
+    @Test
+    void shouldNotRecordEventWhenNothingChanged() {
+        Employee existing = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        existing.setId(EXISTING_ID);
+        when(employeeRepository.findById(EXISTING_ID)).thenReturn(Optional.of(existing));
+        when(employeeRepository.save(existing)).thenReturn(existing);
+        when(passwordEncoder.matches("SecurePass123", "SecurePass123")).thenReturn(true);
+
+        employeeService.updateEmployee(EXISTING_ID, createEmployee("Jean", "Dupont", "jean.dupont@email.com"));
+
+        verify(employeeProducer, never()).sendEmployeeEvent(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenUpdatingMissingEmployee() {
+        when(employeeRepository.findById(EXISTING_ID)).thenReturn(Optional.empty());
+
+        Optional<Employee> result = employeeService.updateEmployee(EXISTING_ID, createEmployee("Paul", "Dupont", null));
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(employeeProducer);
+    }
+
+    @Test
+    void shouldEncodeClientSuppliedHashLikeAnyPassword() {
+        when(passwordEncoder.encode("{bcrypt}$2a$10$abc")).thenReturn("{bcrypt}encoded");
+
+        assertEquals("{bcrypt}encoded", employeeService.hashPassword("{bcrypt}$2a$10$abc"));
+        assertNull(employeeService.hashPassword(null));
+    }
+
+    @Test
+    void shouldHashPlainPasswordsLeftByUpgrade() {
+        Employee legacy = createEmployee("Laurent", "Gina", "laurentgina@mail.com");
+        legacy.setId(EXISTING_ID);
+        legacy.setPassword("{noop}laurent");
+        when(employeeRepository.findByPasswordStartingWith("{noop}")).thenReturn(List.of(legacy));
+        when(passwordEncoder.encode("laurent")).thenReturn("{bcrypt}hash");
+
+        employeeService.hashPlainPasswords();
+
+        verify(employeeRepository).replacePassword(EXISTING_ID, "{noop}laurent", "{bcrypt}hash");
+        verifyNoInteractions(employeeProducer);
+    }
+
+    @Test
+    void shouldRecordDeletedEvent() throws Exception {
+        when(employeeRepository.currentVersion()).thenReturn(9L);
+
+        employeeService.removeEmployee(EXISTING_ID);
+
+        verify(employeeRepository).deleteById(EXISTING_ID);
+        EmployeeEvent event = captureEvent("employee-delete");
+        assertEquals(EmployeeEvent.Op.DELETED, event.getOp());
+        assertEquals(9L, event.getVersion());
+        verify(employeeCacheInvalidator).evictAfterCommit(EXISTING_ID);
+    }
+
+    @Test
+    void shouldMatchCurrentPasswordOfExistingEmployeeOnly() {
+        Employee employee = createEmployee("Jean", "Dupont", "jean.dupont@email.com");
+        employee.setPassword("{bcrypt}hash");
+        when(employeeRepository.findById(EXISTING_ID)).thenReturn(Optional.of(employee));
+        when(employeeRepository.findById(2L)).thenReturn(Optional.empty());
+        when(passwordEncoder.matches("SecurePass123", "{bcrypt}hash")).thenReturn(true);
+
+        assertTrue(employeeService.passwordMatches(EXISTING_ID, "SecurePass123"));
+        assertFalse(employeeService.passwordMatches(2L, "SecurePass123"));
+    }
+}
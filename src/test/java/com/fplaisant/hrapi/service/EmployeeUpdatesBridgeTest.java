@@ -0,0 +1,118 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.EmployeeUpdates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeeUpdatesBridge: coalescing per employee, overflow to a
+ * resync message and resume from a version.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeUpdatesBridgeTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeUpdatesBridge bridge;
+
+    @BeforeEach
+    void setUp() {
+        bridge = new EmployeeUpdatesBridge(messagingTemplate, employeeService, 2, 3);
+    }
+
+    @Test
+    void testFlushCoalescesUpdatesOfSameEmployee() {
+        bridge.onEmployeeEvent(EmployeeEvent.updated(1L, Map.of("firstName", "Laurent"), 1));
+        bridge.onEmployeeEvent(EmployeeEvent.updated(1L, Map.of("mail", "laurent@hrapi.fr"), 2));
+
+        bridge.flush();
+
+        ArgumentCaptor<EmployeeUpdates> captor = ArgumentCaptor.forClass(EmployeeUpdates.class);
+        verify(messagingTemplate).convertAndSend(eq(EmployeeUpdatesBridge.TOPIC), captor.capture());
+        EmployeeUpdates updates = captor.getValue();
+        assertFalse(updates.isResync());
+        assertEquals(2, updates.getVersion());
+        assertEquals(1, updates.getEvents().size());
+        EmployeeEvent event = updates.getEvents().get(0);
+        assertEquals(EmployeeEvent.Op.UPDATED, event.getOp());
+        assertEquals(2, event.getVersion());
+        assertEquals(Map.of("firstName", "Laurent", "mail", "laurent@hrapi.fr"), event.getChanges());
+        verify(messagingTemplate).convertAndSend(eq(EmployeeUpdatesBridge.TOPIC + "/1"), any(EmployeeEvent.class));
+    }
+
+    @Test
+    void testDeleteReplacesPendingUpdate() {
+        EmployeeEvent event = EmployeeUpdatesBridge.coalesce(
+                EmployeeEvent.updated(1L, Map.of("firstName", "Laurent"), 1), EmployeeEvent.deleted(1L, 2));
+
+        assertEquals(EmployeeEvent.Op.DELETED, event.getOp());
+        assertEquals(2, event.getVersion());
+    }
+
+    @Test
+    void testOverflowSendsResync() {
+        bridge.onEmployeeEvent(EmployeeEvent.deleted(1L, 1));
+        bridge.onEmployeeEvent(EmployeeEvent.deleted(2L, 2));
+        bridge.onEmployeeEvent(EmployeeEvent.deleted(3L, 3));
+
+        bridge.flush();
+
+        ArgumentCaptor<EmployeeUpdates> captor = ArgumentCaptor.forClass(EmployeeUpdates.class);
+        verify(messagingTemplate).convertAndSend(eq(EmployeeUpdatesBridge.TOPIC), captor.capture());
+        assertTrue(captor.getValue().isResync());
+        assertEquals(3, captor.getValue().getVersion());
+        verify(messagingTemplate, never()).convertAndSend(eq(EmployeeUpdatesBridge.TOPIC + "/1"), any(EmployeeEvent.class));
+    }
+
+    @Test
+    void testFlushWithoutEventsSendsNothing() {
+        bridge.flush();
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void testEventsSinceReturnsMissedEvents() {
+        when(employeeService.currentEventVersion()).thenReturn(10L);
+        bridge.initialize();
+        bridge.onEmployeeEvent(EmployeeEvent.deleted(1L, 11));
+        bridge.onEmployeeEvent(EmployeeEvent.deleted(2L, 12));
+
+        EmployeeUpdates updates = bridge.eventsSince(11);
+
+        assertFalse(updates.isResync());
+        assertEquals(12, updates.getVersion());
+        assertEquals(List.of(2L), updates.getEvents().stream().map(EmployeeEvent::getId).toList());
+        assertTrue(bridge.eventsSince(9).isResync());
+    }
+
+    @Test
+    void testEventsSinceRequiresResyncOnceHistoryIsTrimmed() {
+        for (long version = 1; version <= 5; version++) {
+            bridge.onEmployeeEvent(EmployeeEvent.deleted(version, version));
+        }
+
+        assertTrue(bridge.eventsSince(1).isResync());
+        EmployeeUpdates updates = bridge.eventsSince(2);
+        assertFalse(updates.isResync());
+        assertEquals(3, updates.getEvents().size());
+    }
+}
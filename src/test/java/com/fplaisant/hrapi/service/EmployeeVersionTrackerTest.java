@@ -0,0 +1,70 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeeVersionTracker: the collection version is read from the
+ * database once per refresh interval and the list cache is cleared before it moves.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeVersionTrackerTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private EmployeeVersionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(EmployeeService.EMPLOYEES_CACHE);
+        tracker = new EmployeeVersionTracker(employeeRepository, cacheManager, Duration.ofHours(1));
+    }
+
+    @Test
+    void testCurrentVersionReadsDatabaseOncePerRefresh() {
+        when(employeeRepository.currentVersion()).thenReturn(4L);
+
+        assertEquals(4, tracker.currentVersion());
+        assertEquals(4, tracker.currentVersion());
+
+        verify(employeeRepository, times(1)).currentVersion();
+    }
+
+    @Test
+    void testEventAdvancesVersionAndClearsListCache() {
+        when(employeeRepository.currentVersion()).thenReturn(4L);
+        tracker.currentVersion();
+        cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).put("key", List.of());
+
+        tracker.onEmployeeEvent(EmployeeEvent.deleted(1L, 5));
+
+        assertEquals(5, tracker.currentVersion());
+        assertNull(cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).get("key"));
+    }
+
+    @Test
+    void testOlderVersionIsIgnored() {
+        when(employeeRepository.currentVersion()).thenReturn(4L);
+        tracker.currentVersion();
+        cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).put("key", List.of());
+
+        tracker.advanceAfterCommit(3);
+
+        assertEquals(4, tracker.currentVersion());
+        assertNotNull(cacheManager.getCache(EmployeeService.EMPLOYEES_CACHE).get("key"));
+    }
+}
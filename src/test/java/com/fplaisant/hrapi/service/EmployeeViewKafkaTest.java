@@ -0,0 +1,72 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end test of the materialized view with an embedded Kafka broker: writes go through
+ * the outbox and the relay, come back through the consumer, and reads are then served from
+ * memory with the node's own writes visible.
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "spring.datasource.url=jdbc:h2:mem:hrapi-view;DB_CLOSE_DELAY=-1",
+        "hrapi.events.consumer.enabled=true",
+        "hrapi.view.enabled=true"
+})
+@EmbeddedKafka(partitions = 1, topics = {"employee-add", "employee-update", "employee-delete"})
+class EmployeeViewKafkaTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeView employeeView;
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the view to catch up");
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void testReadsFollowWritesThroughKafka() throws InterruptedException {
+        await(employeeService::servedFromView);
+        assertEquals(3, employeeView.getEmployees().size());
+
+        Employee employee = new Employee();
+        employee.setFirstName("Marie");
+        employee.setLastName("CURIE");
+        employee.setMail("marie.curie@mail.com");
+        employee.setPassword("SecurePass123");
+        Long id = employeeService.createEmployee(employee).getId();
+
+        // Tant que l'événement n'est pas revenu, la lecture passe par la base
+        assertEquals("Marie", employeeService.getEmployee(id).orElseThrow().getFirstName());
+        await(() -> employeeService.servedFromView() && employeeView.getEmployee(id).isPresent());
+
+        Employee changes = new Employee();
+        changes.setFirstName("Maria");
+        employeeService.updateEmployee(id, changes);
+        await(employeeService::servedFromView);
+        Employee updated = employeeService.getEmployee(id).orElseThrow();
+        assertEquals("Maria", updated.getFirstName());
+        assertEquals(1, updated.getVersion());
+
+        employeeService.removeEmployee(id);
+        await(employeeService::servedFromView);
+        assertTrue(employeeService.getEmployee(id).isEmpty());
+        assertEquals(3, employeeView.getEmployees().size());
+    }
+}
@@ -0,0 +1,148 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeeView against an in-memory H2 database built from data.sql:
+ * snapshot loading, events received out of order across topics, and the applied
+ * version that only moves once every earlier event has been applied.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeViewTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private EmployeeVersionTracker employeeVersionTracker;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private EmployeeView view;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("data.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        view = new EmployeeView(jdbcTemplate, employeeRepository, employeeVersionTracker, 10000, Duration.ofSeconds(10));
+        when(employeeRepository.currentVersion()).thenReturn(0L);
+        view.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private long insert(String firstName, String lastName) {
+        jdbcTemplate.update("INSERT INTO employees (first_name, last_name, mail, password) VALUES (?, ?, ?, ?)",
+                firstName, lastName, firstName.toLowerCase() + "@mail.com", "{noop}secret");
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM employees", Long.class);
+    }
+
+    private static Employee employee(long id, String firstName, String lastName) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setMail(firstName.toLowerCase() + "@mail.com");
+        return employee;
+    }
+
+    @Test
+    void testSnapshotLoadsEmployeesWithoutPassword() {
+        List<Employee> employees = view.getEmployees();
+
+        assertEquals(3, employees.size());
+        assertEquals("Laurent", employees.get(0).getFirstName());
+        assertNull(employees.get(0).getPassword());
+        assertEquals(0, view.getAppliedVersion());
+    }
+
+    @Test
+    void testUpdateWithEmployeeVersionIsAppliedFromEvent() {
+        when(employeeVersionTracker.currentVersion()).thenReturn(1L);
+
+        view.onEmployeeEvent(EmployeeEvent.updated(1L, Map.of("lastName", "DUPONT"), 1, 1L));
+
+        Employee employee = view.getEmployee(1L).orElseThrow();
+        assertEquals("DUPONT", employee.getLastName());
+        assertEquals(1, employee.getVersion());
+        assertTrue(view.isFresh());
+    }
+
+    @Test
+    void testLateCreateDoesNotOverwriteNewerUpdate() {
+        long id = insert("Marie", "CURIE");
+
+        // L'update (topic employee-update) arrive avant la création (topic employee-add)
+        view.onEmployeeEvent(EmployeeEvent.updated(id, Map.of("firstName", "Marie"), 2, 1L));
+        assertEquals(0, view.getAppliedVersion());
+        view.onEmployeeEvent(EmployeeEvent.created(employee(id, "Maria", "CURIE"), 1));
+
+        assertEquals("Marie", view.getEmployee(id).orElseThrow().getFirstName());
+        assertEquals(2, view.getAppliedVersion());
+    }
+
+    @Test
+    void testLateCreateDoesNotResurrectDeletedEmployee() {
+        view.onEmployeeEvent(EmployeeEvent.deleted(10L, 2));
+        view.onEmployeeEvent(EmployeeEvent.created(employee(10L, "Marie", "CURIE"), 1));
+
+        assertTrue(view.getEmployee(10L).isEmpty());
+        assertEquals(3, view.getEmployees().size());
+    }
+
+    @Test
+    void testViewIsNotFreshUntilMissingVersionArrives() {
+        when(employeeVersionTracker.currentVersion()).thenReturn(2L);
+        view.onEmployeeEvent(EmployeeEvent.deleted(2L, 2));
+
+        assertFalse(view.isFresh());
+
+        view.onEmployeeEvent(EmployeeEvent.updated(1L, Map.of("firstName", "Paul"), 1, 1L));
+
+        assertTrue(view.isFresh());
+        assertEquals(List.of(1L, 3L), view.getEmployees().stream().map(Employee::getId).toList());
+    }
+
+    @Test
+    void testImportAppliesImportedRowsFromEvent() {
+        long first = insert("Marie", "CURIE");
+        long second = insert("Pierre", "CURIE");
+        long concurrent = insert("Irene", "CURIE");
+        // Modifié après l'import : la vue applique l'événement, sans relire la base
+        jdbcTemplate.update("UPDATE employees SET first_name = 'Eve' WHERE id = ?", second);
+
+        view.onEmployeeEvent(EmployeeEvent.imported(
+                List.of(employee(first, "Marie", "CURIE"), employee(second, "Pierre", "CURIE")), 1));
+
+        assertEquals("Marie", view.getEmployee(first).orElseThrow().getFirstName());
+        assertEquals("Pierre", view.getEmployee(second).orElseThrow().getFirstName());
+        // Créé en même temps que l'import, mais pas par lui
+        assertTrue(view.getEmployee(concurrent).isEmpty());
+        assertEquals(1, view.getAppliedVersion());
+    }
+}
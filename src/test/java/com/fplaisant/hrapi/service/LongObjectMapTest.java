@@ -0,0 +1,58 @@
+package com.fplaisant.hrapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LongObjectMap, checked against a HashMap under random puts and removes
+ * so that backward-shift deletion and resizing keep every key reachable.
+ */
+class LongObjectMapTest {
+
+    @Test
+    void testPutGetAndReplace() {
+        LongObjectMap<String> map = new LongObjectMap<>(0);
+
+        assertNull(map.put(1L, "Jean"));
+        assertEquals("Jean", map.put(1L, "Paul"));
+
+        assertEquals("Paul", map.get(1L));
+        assertNull(map.get(2L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testZeroKeyIsRejected() {
+        LongObjectMap<String> map = new LongObjectMap<>(0);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, "Jean"));
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        LongObjectMap<Long> map = new LongObjectMap<>(0);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+    }
+}
@@ -0,0 +1,182 @@
+package com.fplaisant.hrapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fplaisant.hrapi.model.EmployeeEvent;
+import com.fplaisant.hrapi.model.OutboxEvent;
+import com.fplaisant.hrapi.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay, with an in-process stand-in for the Kafka broker
+ * (a mocked KafkaTemplate completing or failing each send).
+ *
+ * Verifies that only the acknowledged prefix of a batch is removed from the
+ * outbox so that ordering is kept and failed events are retried, that events
+ * which cannot be serialized are moved to the dead-letter table instead of
+ * blocking the outbox, and that a node skips its turn while another one holds
+ * the relay lock.
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    private static final int BATCH_SIZE = 3;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    @Mock
+    private EmployeeAuditService auditService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = createRelay("json");
+        when(outboxEventRepository.tryLockRelay()).thenReturn(List.of(1));
+    }
+
+    private OutboxRelay createRelay(String format) {
+        EmployeeEventSerializer serializer = new EmployeeEventSerializer(new ObjectMapper(), new EmployeeProtobufCodec(), format);
+        return new OutboxRelay(outboxEventRepository, kafkaTemplate, serializer, meterRegistry,
+                TransactionOperations.withoutTransaction(), auditService, BATCH_SIZE, 1000);
+    }
+
+    private OutboxEvent createOutboxEvent(long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setTopic("employee-update");
+        event.setMessageKey(String.valueOf(id));
+        event.setPayload("{\"id\":" + id + "}");
+        event.setCreatedAt(Instant.now());
+        event.setTraceId("trace-" + id);
+        return event;
+    }
+
+    @Test
+    void shouldPublishBatchAndDeleteAcknowledgedEvents() {
+        when(outboxEventRepository.findByOrderByIdAsc(any(Limit.class)))
+                .thenReturn(List.of(createOutboxEvent(1), createOutboxEvent(2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        outboxRelay.relay();
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        ProducerRecord<String, byte[]> first = records.getAllValues().get(0);
+        assertEquals("employee-update", first.topic());
+        assertEquals("1", first.key());
+        assertEquals("{\"id\":1}", new String(first.value(), StandardCharsets.UTF_8));
+        assertEquals("application/json", new String(first.headers().lastHeader("contentType").value(), StandardCharsets.UTF_8));
+        assertEquals("trace-1", new String(first.headers().lastHeader(OutboxRelay.TRACE_ID_HEADER).value(), StandardCharsets.UTF_8));
+        verify(outboxEventRepository).deleteByIds(List.of(1L, 2L));
+        assertEquals(2.0, meterRegistry.counter("hrapi.outbox.relayed").count());
+        assertEquals(2, meterRegistry.timer("hrapi.kafka.send", "topic", "employee-update", "outcome", "success").count());
+    }
+
+    @Test
+    void shouldTranscodeOutboxJsonToProtobuf() throws Exception {
+        outboxRelay = createRelay("protobuf");
+        OutboxEvent event = createOutboxEvent(1);
+        EmployeeEvent employeeEvent = EmployeeEvent.updated(1L, Map.of("mail", "jean@email.com"), 5L, 2L);
+        event.setPayload(new ObjectMapper().writeValueAsString(employeeEvent));
+        when(outboxEventRepository.findByOrderByIdAsc(any(Limit.class))).thenReturn(List.of(event));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        outboxRelay.relayBatch();
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(record.capture());
+        assertEquals(employeeEvent, new EmployeeProtobufCodec().decodeEvent(record.getValue().value()));
+        assertEquals(EmployeeProtobufCodec.MEDIA_TYPE,
+                new String(record.getValue().headers().lastHeader("contentType").value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldKeepEventsAfterFirstFailure() {
+        when(outboxEventRepository.findByOrderByIdAsc(any(Limit.class)))
+                .thenReturn(List.of(createOutboxEvent(1), createOutboxEvent(2), createOutboxEvent(3)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(1, relayed);
+        verify(outboxEventRepository).deleteByIds(List.of(1L));
+        ArgumentCaptor<List<OutboxEvent>> audited = ArgumentCaptor.forClass(List.class);
+        verify(auditService).record(audited.capture());
+        assertEquals(List.of(1L), audited.getValue().stream().map(OutboxEvent::getId).toList());
+        assertEquals(2.0, meterRegistry.counter("hrapi.outbox.failures").count());
+    }
+
+    @Test
+    void shouldMoveUnserializableEventToDeadLetterAndContinue() {
+        outboxRelay = createRelay("protobuf");
+        OutboxEvent broken = createOutboxEvent(1);
+        broken.setPayload("{not json");
+        OutboxEvent next = createOutboxEvent(2);
+        next.setPayload("{\"op\":\"DELETED\",\"id\":2,\"version\":2}");
+        when(outboxEventRepository.findByOrderByIdAsc(any(Limit.class))).thenReturn(List.of(broken, next));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(2, outboxRelay.relayBatch());
+
+        verify(outboxEventRepository).copyToDeadLetter(eq(1L), anyString(), any(Instant.class));
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        verify(outboxEventRepository).deleteByIds(List.of(1L, 2L));
+        ArgumentCaptor<List<OutboxEvent>> audited = ArgumentCaptor.forClass(List.class);
+        verify(auditService).record(audited.capture());
+        assertEquals(List.of(2L), audited.getValue().stream().map(OutboxEvent::getId).toList());
+        assertEquals(1.0, meterRegistry.counter("hrapi.outbox.dead_letters").count());
+        assertEquals(0.0, meterRegistry.counter("hrapi.outbox.failures").count());
+    }
+
+    @Test
+    void shouldSkipBatchWhileAnotherNodeHoldsRelayLock() {
+        when(outboxEventRepository.tryLockRelay()).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relayBatch());
+
+        verify(outboxEventRepository, never()).findByOrderByIdAsc(any(Limit.class));
+        verifyNoInteractions(kafkaTemplate, auditService);
+    }
+
+    @Test
+    void shouldDoNothingWhenOutboxIsEmpty() {
+        when(outboxEventRepository.findByOrderByIdAsc(any(Limit.class))).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relayBatch());
+
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository, never()).deleteByIds(any());
+    }
+}
@@ -0,0 +1,116 @@
+package com.fplaisant.hrapi.service;
+
+import com.fplaisant.hrapi.model.Employee;
+import com.fplaisant.hrapi.model.WriteOperation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteAheadLog: ordering, segment rollover and release,
+ * recovery of unapplied operations after a restart and torn records.
+ */
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private static WriteOperation update(long employeeId, String firstName) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName("Dupont");
+        employee.setPassword("{bcrypt}hash");
+        return new WriteOperation(0, WriteOperation.Type.UPDATE, employeeId, employee, 1000L, "alice");
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testPollReturnsOperationsInAppendOrder() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, false, 0);
+
+        assertEquals(1, log.append(update(7, "Jean")));
+        assertEquals(2, log.append(new WriteOperation(0, WriteOperation.Type.DELETE, 7L, null, 2000L, "alice")));
+
+        List<WriteOperation> operations = log.poll(10);
+        assertEquals(2, operations.size());
+        assertEquals(WriteOperation.Type.UPDATE, operations.get(0).getType());
+        assertEquals("Jean", operations.get(0).getEmployee().getFirstName());
+        assertNull(operations.get(0).getEmployee().getMail());
+        assertEquals(7L, operations.get(1).getEmployeeId());
+        assertNull(operations.get(1).getEmployee());
+        assertTrue(log.poll(10).isEmpty());
+    }
+
+    @Test
+    void testRollsOverAndReleasesAppliedSegments() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, false, 0);
+        for (int i = 1; i <= 200; i++) {
+            log.append(update(i, "Prénom" + i));
+        }
+        assertTrue(log.segmentCount() > 2);
+
+        List<WriteOperation> operations = log.poll(150);
+        assertEquals(150, operations.size());
+        assertEquals(150, operations.get(149).getId());
+        log.release(150);
+
+        assertEquals(segmentFiles(), log.segmentCount());
+        List<WriteOperation> remaining = log.poll(1000);
+        assertEquals(50, remaining.size());
+        assertEquals(151, remaining.get(0).getId());
+    }
+
+    @Test
+    void testReopenReplaysOnlyUnappliedOperations() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, false, 0);
+        for (int i = 1; i <= 5; i++) {
+            log.append(update(i, "Jean"));
+        }
+
+        WriteAheadLog reopened = WriteAheadLog.open(directory, SEGMENT_SIZE, false, 3);
+
+        List<WriteOperation> operations = reopened.poll(10);
+        assertEquals(List.of(4L, 5L), operations.stream().map(WriteOperation::getId).toList());
+        assertEquals(6, reopened.append(update(1, "Paul")));
+    }
+
+    @Test
+    void testRecoveryStopsAtTornRecord() throws IOException {
+        WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, false, 0);
+        log.append(update(1, "Jean"));
+        log.append(update(2, "Paul"));
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        // Corrompt le corps du second enregistrement, comme une écriture interrompue
+        int secondRecord = 8 + WriteAheadLog.encode(update(1, "Jean")).length;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), secondRecord + 20);
+        }
+
+        WriteAheadLog reopened = WriteAheadLog.open(directory, SEGMENT_SIZE, false, 0);
+
+        List<WriteOperation> operations = reopened.poll(10);
+        assertEquals(1, operations.size());
+        assertEquals(2, reopened.append(update(3, "Marie")));
+        assertEquals("Marie", reopened.poll(10).get(0).getEmployee().getFirstName());
+    }
+}